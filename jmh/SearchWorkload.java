@@ -0,0 +1,36 @@
+import benchmarks.Workload;
+
+/**
+ * The searches SearchBenchmarks times, over a gridworld from SearchBenchmark.seededGrid.
+ */
+public class SearchWorkload implements Workload {
+
+    Grid gridworld;
+    Search.Type heuristic;
+    NodeComparator nodeComparator;
+    GridSearch engine;
+    int goalX, goalY;
+
+    public void setup(int size, float p, long seed, String heuristic, boolean larger) {
+        gridworld = SearchBenchmark.seededGrid(size, p, seed);
+        this.heuristic = Search.Type.valueOf(heuristic);
+        nodeComparator = new NodeComparator(larger);
+        engine = Search.newEngine(size, size, larger, Search.Algorithm.ASTAR);
+        goalX = size-1;
+        goalY = size-1;
+    }
+
+    public Object astar() {
+        return engine.search(gridworld, 0, 0, goalX, goalY, heuristic) ?
+                engine.path(goalX, goalY) : engine.path(0, 0);
+    }
+
+    public Object repeated(String direction) {
+        return Search.repeatedAStarSearch(gridworld, Search.Direction.valueOf(direction),
+                heuristic, nodeComparator);
+    }
+
+    public long expansions(String benchmark) {
+        return SearchBenchmark.expansions(benchmark, gridworld, heuristic, nodeComparator.larger);
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * JMH benchmarks of aStarSearch and forward and backward repeatedAStarSearch over
+ * seeded gridworlds, for every size, block probability, heuristic and tie-breaking
+ * mode below. The gridworld and the engine astar reuses are built once per trial, so
+ * an op is a search and nothing else; repeatedAStarSearch builds its own engine and
+ * agent gridworld on every call, as any caller's would. Each benchmark reports ops/s,
+ * and expanded/s from the Expansions counters; run with -prof gc for allocation.
+ *
+ * Usage: mvn -P jmh package && java -jar target/benchmarks.jar -prof gc
+ *        [-p size=101,1001] [-p p=0.2] [-jvmArgs -Xmx8g]
+ *
+ * The larger sizes need a large heap, and the repeated searches on them take seconds
+ * per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmarks {
+
+    @Param({"101", "1001", "10001"})
+    int size;
+
+    @Param({"0.1", "0.2", "0.3"})
+    float p;
+
+    @Param({"MANHATTAN", "EUCLIDIAN", "CHEBYSHEV"})
+    String heuristic;
+
+    @Param({"true", "false"})
+    boolean larger;
+
+    @Param("1")
+    long seed;
+
+    Workload workload;
+    // The nodes one op expands, the same every time for a given gridworld.
+    long expansions;
+
+    /**
+     * Counts the nodes the ops of one thread expand, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Expansions {
+        public long expanded;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            expanded = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkParams params) throws ReflectiveOperationException {
+        workload = (Workload) Class.forName("SearchWorkload").newInstance();
+        workload.setup(size, p, seed, heuristic, larger);
+        String benchmark = params.getBenchmark();
+        expansions = workload.expansions(benchmark.substring(benchmark.lastIndexOf('.') + 1));
+    }
+
+    @Benchmark
+    public Object astar(Expansions counters) {
+        counters.expanded += expansions;
+        return workload.astar();
+    }
+
+    @Benchmark
+    public Object forward(Expansions counters) {
+        counters.expanded += expansions;
+        return workload.repeated("FORWARD");
+    }
+
+    @Benchmark
+    public Object backward(Expansions counters) {
+        counters.expanded += expansions;
+        return workload.repeated("BACKWARD");
+    }
+}
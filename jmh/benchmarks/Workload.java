@@ -0,0 +1,31 @@
+package benchmarks;
+
+/**
+ * The searches SearchBenchmarks times. JMH only runs benchmarks outside the default
+ * package, where the search classes are, so they are reached through this interface;
+ * SearchWorkload in the default package implements it.
+ */
+public interface Workload {
+
+    /**
+     * Builds the seeded gridworld and the engine the ops reuse.
+     *
+     * @param heuristic The name of a Search.Type.
+     */
+    void setup(int size, float p, long seed, String heuristic, boolean larger);
+
+    /**
+     * Searches from corner to corner with the engine built by setup.
+     */
+    Object astar();
+
+    /**
+     * Runs repeatedAStarSearch in the named Search.Direction, from corner to corner.
+     */
+    Object repeated(String direction);
+
+    /**
+     * The nodes one op of the named benchmark expands: astar, forward or backward.
+     */
+    long expansions(String benchmark);
+}
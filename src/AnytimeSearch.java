@@ -0,0 +1,264 @@
+/**
+ * Bounded-suboptimal and anytime search: Weighted A* and ARA*. Cells are ordered by
+ * g + epsilon * h, which reaches the goal after far fewer expansions than A* and
+ * finds a path at most epsilon times longer than the shortest.
+ *
+ * With a time budget, the search runs ARA*: after the first path it lowers epsilon
+ * by step and searches again, and keeps going until epsilon reaches 1 (the path is
+ * then optimal) or the budget runs out. Each round reuses the g values of the last:
+ * only the cells still on the open list and those whose g value dropped after they
+ * were expanded (the inconsistent ones) are searched again. A round cut short by the
+ * deadline leaves the path of the last round in place. With no budget the search is
+ * plain Weighted A*, without reopening.
+ *
+ * The budget only bounds the improvement rounds. The first round has no path to fall
+ * back on, so it always runs until it finds one or proves there is none, however
+ * long that takes; a search may therefore overrun its budget by a whole Weighted A*
+ * search.
+ */
+public class AnytimeSearch extends GridSearch {
+
+    // How much each round of ARA* lowers epsilon when no step is given.
+    static final double DEFAULT_STEP = 0.5;
+    // The epsilon and budget of the engines Search.newEngine makes.
+    static final double DEFAULT_EPSILON = 2;
+    static final long DEFAULT_BUDGET = 10000000; // 10 ms
+    // Rounds check the clock once every this many expansions.
+    static final int CLOCK_MASK = 255;
+
+    double epsilon, step;
+    long budgetNanos;
+    double bound;
+    int goal;
+    int[] incons;
+    int inconsCount;
+    int[] inconsStamp;
+    int inconsRound;
+    int expansions;
+    int pathLength;
+
+    /**
+     * @param width The width (x dimension) of the gridworlds to search.
+     * @param height The height (y dimension) of the gridworlds to search.
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     * @param epsilon The weight of h in the first round, at least 1.
+     * @param budgetNanos How long to keep improving the path after the first one is
+     *                    found, or 0 for Weighted A*. Finding the first path is not
+     *                    counted against it.
+     */
+    public AnytimeSearch(int width, int height, boolean larger, double epsilon,
+                         long budgetNanos) {
+        this(width, height, larger, epsilon, budgetNanos, DEFAULT_STEP);
+    }
+
+    /**
+     * @param step How much each round lowers epsilon.
+     */
+    public AnytimeSearch(int width, int height, boolean larger, double epsilon,
+                         long budgetNanos, double step) {
+        super(width, height, larger);
+        if(epsilon < 1 || step <= 0) {
+            throw new IllegalArgumentException("epsilon must be at least 1 and step positive.");
+        }
+        this.epsilon = epsilon;
+        this.budgetNanos = budgetNanos;
+        this.step = step;
+        incons = new int[width * height];
+        inconsStamp = new int[width * height];
+    }
+
+    /**
+     * The epsilon of the last round that finished: the path found is at most this
+     * many times longer than the shortest. Infinite if no path was found.
+     */
+    public double bound() {
+        return bound;
+    }
+
+    // Keys are g + eps * h for every eps the rounds go through.
+    @Override
+    boolean wholeKeys(Heuristic heuristic) {
+        return heuristic.integral() && epsilon % 1 == 0 && step % 1 == 0;
+    }
+
+    /**
+     * Only if epsilon is 1: a larger one may stop short of the shortest path.
+     */
+    @Override
+    public boolean optimal() {
+        return epsilon == 1;
+    }
+
+    @Override
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Heuristic heuristic) {
+        if(endBlocked(gridworld, startX, startY, goalX, goalY, heuristic)) {
+            goal = goalY * width + goalX;
+            bound = Double.POSITIVE_INFINITY;
+            pathLength = 0;
+            return false; // Failure.
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        goal = begin(startX, startY, goalX, goalY, heuristic);
+        int start = startY * width + startX;
+        double eps = epsilon;
+        openList.update(start, eps * h(start, startX, startY), 0);
+        nextRound();
+        expansions = 0;
+        bound = Double.POSITIVE_INFINITY;
+        pathLength = 0;
+
+        // The first path is always searched for to the end, however long it takes.
+        improve(gridworld, eps, Long.MAX_VALUE);
+        boolean found = gAt(goal) != Integer.MAX_VALUE;
+        if(found) {
+            bound = eps;
+            while(eps > 1 && System.nanoTime() < deadline) {
+                eps = Math.max(1, eps - step);
+                reopen(eps);
+                if(!improve(gridworld, eps, deadline)) {
+                    break; // Out of time; the last round's path still stands.
+                }
+                bound = eps;
+            }
+            pathLength = pathCells().length;
+        }
+        if(listener != null) {
+            listener.searchFinished(found, expansions, generated, openPeak, decreaseKeys,
+                    System.nanoTime() - startNanos);
+        }
+        return found;
+    }
+
+    // Expands cells by g + eps * h until no open cell can lead to a shorter path to the
+    // goal than the one found. Returns false if the deadline passed first.
+    boolean improve(Grid gridworld, double eps, long deadline) {
+        int count = 0;
+        while(!openList.isEmpty()) {
+            int goalG = gAt(goal);
+            if(goalG != Integer.MAX_VALUE && goalG <= topF()) {
+                return true;
+            }
+            if((++count & CLOCK_MASK) == 0 && System.nanoTime() >= deadline) {
+                return false;
+            }
+            int curr = openList.pop();
+            closedList.add(curr);
+            expansions++;
+
+            int x = curr % width;
+            int y = curr / width;
+            int childG = g[curr] + 1;
+            if(y-1 >= 0 && !gridworld.isBlocked(x, y-1)) {
+                update(curr, curr - width, x, y-1, childG, eps);
+            }
+            if(x+1 < width && !gridworld.isBlocked(x+1, y)) {
+                update(curr, curr + 1, x+1, y, childG, eps);
+            }
+            if(y+1 < height && !gridworld.isBlocked(x, y+1)) {
+                update(curr, curr + width, x, y+1, childG, eps);
+            }
+            if(x-1 >= 0 && !gridworld.isBlocked(x-1, y)) {
+                update(curr, curr - 1, x-1, y, childG, eps);
+            }
+        }
+        return true;
+    }
+
+    // Lowers a neighbor's g value if the path through the expanded cell is shorter.
+    void update(int curr, int child, int x, int y, int childG, double eps) {
+        if(stamp[child] == search && g[child] <= childG) {
+            return;
+        }
+        stamp[child] = search;
+        g[child] = childG;
+        parent[child] = curr;
+        if(!closedList.contains(child)) {
+            double f = childG + eps * h(child, x, y);
+            if(openList.contains(child)) {
+                openList.decreaseKey(child, f, childG);
+                decreaseKeys++;
+            } else {
+                openList.push(child, f, childG);
+                generated++;
+                if(openList.size() > openPeak) openPeak = openList.size();
+            }
+        } else if(inconsStamp[child] != inconsRound) {
+            // Already expanded this round; it is searched again in the next one.
+            inconsStamp[child] = inconsRound;
+            incons[inconsCount++] = child;
+        }
+    }
+
+    // Starts the next round: the open and inconsistent cells, keyed with the new epsilon.
+    void reopen(double eps) {
+        int open = openList.copyTo(expanded);
+        openList.clear();
+        for(int i=0; i<open; i++) {
+            push(expanded[i], eps);
+        }
+        for(int i=0; i<inconsCount; i++) {
+            if(!openList.contains(incons[i])) {
+                push(incons[i], eps);
+            }
+        }
+        closedList.clear();
+        nextRound();
+    }
+
+    void push(int cell, double eps) {
+        openList.push(cell, g[cell] + eps * h(cell, cell % width, cell / width), g[cell]);
+    }
+
+    void nextRound() {
+        inconsCount = 0;
+        inconsRound++;
+        if(inconsRound == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(inconsStamp, 0);
+            inconsRound = 1;
+        }
+    }
+
+    // The cells of the path to the goal, start first, following the parent links.
+    int[] pathCells() {
+        int length = 0;
+        for(int cell=goal; cell >= 0; cell=parent[cell]) {
+            length++;
+        }
+        int[] cells = new int[length];
+        int i = length;
+        for(int cell=goal; cell >= 0; cell=parent[cell]) {
+            cells[--i] = cell;
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the length of the path found to the goal, or the g value the last search
+     * found for any other space (an upper bound on its distance).
+     */
+    @Override
+    public int g(int x, int y) {
+        return y * width + x == goal && pathLength > 0 ? pathLength - 1 : super.g(x, y);
+    }
+
+    /**
+     * Builds the Node chain for the path found to the goal. Returns null for any
+     * other space.
+     */
+    @Override
+    public Node path(int x, int y) {
+        if(y * width + x != goal || pathLength == 0) {
+            return null;
+        }
+        int[] cells = pathCells();
+        Node node = null;
+        for(int i=0; i<cells.length; i++) {
+            int cx = cells[i] % width;
+            int cy = cells[i] / width;
+            node = new Node(cx, cy, i, heuristic.h(cells[i], cx, cy), node);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Views an int[][] gridworld (as made by Search.genGrid) as a Grid. Blocked spaces
+ * are set to -1, anything else is open. The array is not copied, so writes made
+ * straight to it are not counted by version.
+ */
+public class ArrayGrid implements Grid {
+
+    int[][] gridworld;
+    long version;
+
+    public ArrayGrid(int[][] gridworld) {
+        this.gridworld = gridworld;
+    }
+
+    public int width() {
+        return gridworld.length;
+    }
+
+    public int height() {
+        return gridworld.length == 0 ? 0 : gridworld[0].length;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        return gridworld[x][y] == -1;
+    }
+
+    public void setBlocked(int x, int y, boolean blocked) {
+        gridworld[x][y] = blocked ? -1 : 0;
+        version++;
+    }
+
+    public long version() {
+        return version;
+    }
+}
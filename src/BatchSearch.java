@@ -0,0 +1,179 @@
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers many start/goal queries against one shared gridworld in parallel on a
+ * ForkJoinPool. Every worker looks at the same Grid, so it must be safe to read from
+ * several threads at once; a TiledGrid, whose lookups change its cache, isn't, and
+ * its queries are run one after another on the calling thread instead.
+ *
+ * Search engines are kept in a pool for the length of the batch: a task takes one
+ * for its run of queries and hands it back when done, so no search state is shared
+ * or allocated per query and all of them can be collected as soon as the batch
+ * returns. Usually about one engine per thread is built, but a worker that waits in a
+ * join, as PARALLEL_BIDIRECTIONAL's searches do, may run another task meanwhile and
+ * take a second engine, so nested joins can build more engines than the pool has
+ * threads.
+ */
+public class BatchSearch {
+
+    // Below this many queries a task stops splitting and runs them itself.
+    static final int THRESHOLD = 64;
+
+    /**
+     * A start/goal pair to search.
+     */
+    public static class Query {
+        int startX, startY, goalX, goalY;
+
+        public Query(int startX, int startY, int goalX, int goalY) {
+            this.startX = startX;
+            this.startY = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+    }
+
+    /**
+     * Runs every query on the common ForkJoinPool.
+     *
+     * @see #search(Grid, List, Search.Type, NodeComparator, Search.Algorithm, ForkJoinPool)
+     */
+    public static Node[] search(Grid gridworld, List<Query> queries, Search.Type heuristic,
+                                NodeComparator nodeComparator, Search.Algorithm algorithm) {
+        return search(gridworld, queries, heuristic, nodeComparator, algorithm,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs every query against the same gridworld, spread across the pool's threads,
+     * or on the calling thread alone if the gridworld is a TiledGrid.
+     *
+     * @param gridworld The gridworld to search. It must not be changed while the batch runs.
+     * @param queries The start/goal pairs to search.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @param algorithm The search algorithm to use.
+     * @param pool The pool to run the queries on.
+     * @return For each query in order, the goal Node with the path tree leading back to
+     * the start, or null if the goal is unreachable.
+     */
+    public static Node[] search(Grid gridworld, List<Query> queries, Search.Type heuristic,
+                                NodeComparator nodeComparator, Search.Algorithm algorithm,
+                                ForkJoinPool pool) {
+        Query[] batch = queries.toArray(new Query[queries.size()]);
+        Node[] results = new Node[batch.length];
+        if(algorithm == Search.Algorithm.JPS_PLUS) {
+            JumpTable.of(gridworld); // Build the shared table once, before the workers start.
+        }
+        // Queries between different components fail without a search. Indexing a
+        // TiledGrid would read in every one of its tiles, so those are always searched.
+        ComponentIndex components = gridworld instanceof TiledGrid ? null :
+                ComponentIndex.of(gridworld);
+        EnginePool engines = new EnginePool(gridworld.width(), gridworld.height(),
+                nodeComparator.larger, algorithm);
+        // Refuse a heuristic the engines can't use here, not in the middle of the pool.
+        GridSearch first = engines.take();
+        first.checkKeys(Heuristic.of(heuristic, 0, 0));
+        engines.give(first);
+        try {
+            Task all = new Task(gridworld, components, batch, results, heuristic, engines, 0,
+                    batch.length);
+            if(gridworld instanceof TiledGrid) {
+                all.searchAll();
+            } else {
+                pool.invoke(all);
+            }
+        } finally {
+            engines.release();
+        }
+        return results;
+    }
+
+    /**
+     * The idle search engines of one batch.
+     */
+    static class EnginePool {
+        int width, height;
+        boolean larger;
+        Search.Algorithm algorithm;
+        ConcurrentLinkedQueue<GridSearch> idle = new ConcurrentLinkedQueue<GridSearch>();
+
+        EnginePool(int width, int height, boolean larger, Search.Algorithm algorithm) {
+            this.width = width;
+            this.height = height;
+            this.larger = larger;
+            this.algorithm = algorithm;
+        }
+
+        // An idle engine, or a new one if every engine is in use.
+        GridSearch take() {
+            GridSearch engine = idle.poll();
+            return engine != null ? engine : Search.newEngine(width, height, larger, algorithm);
+        }
+
+        void give(GridSearch engine) {
+            idle.offer(engine);
+        }
+
+        void release() {
+            idle.clear();
+        }
+    }
+
+    static class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        Grid gridworld;
+        ComponentIndex components;
+        Query[] batch;
+        Node[] results;
+        Search.Type heuristic;
+        EnginePool engines;
+        int from, to;
+
+        Task(Grid gridworld, ComponentIndex components, Query[] batch, Node[] results,
+             Search.Type heuristic, EnginePool engines, int from, int to) {
+            this.gridworld = gridworld;
+            this.components = components;
+            this.batch = batch;
+            this.results = results;
+            this.heuristic = heuristic;
+            this.engines = engines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Task(gridworld, components, batch, results, heuristic, engines,
+                                from, middle),
+                        new Task(gridworld, components, batch, results, heuristic, engines,
+                                middle, to));
+                return;
+            }
+            searchAll();
+        }
+
+        // Runs the queries from to to with one engine, on this thread.
+        void searchAll() {
+            GridSearch engine = engines.take();
+            try {
+                for(int i=from; i<to; i++) {
+                    Query q = batch[i];
+                    if((components == null ||
+                            components.connected(q.startX, q.startY, q.goalX, q.goalY)) &&
+                            engine.search(gridworld, q.startX, q.startY, q.goalX, q.goalY,
+                                    heuristic)) {
+                        results[i] = engine.path(q.goalX, q.goalY);
+                    }
+                }
+            } finally {
+                engines.give(engine);
+            }
+        }
+    }
+}
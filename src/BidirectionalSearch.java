@@ -0,0 +1,237 @@
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bidirectional A* for the fully visible case: a FORWARD search from the start toward
+ * the goal and a BACKWARD search from the goal toward the start, run together until
+ * they meet. Every time one side reaches a space the other side has reached, the
+ * cost of the path through it is a candidate for the best path mu. The search stops
+ * once the larger of the two open lists' smallest f values is at least mu: with
+ * consistent heuristics, every cheaper path would have to pass through a space on
+ * each open list with an f value below mu, so none can be left undiscovered.
+ *
+ * The forward half is this engine's own state, the backward half a second
+ * GridSearch. Sequentially, the half with the smaller open list is expanded next.
+ * In parallel mode the backward half is forked to a ForkJoinPool (the common pool,
+ * or the pool of the calling task) while the calling thread runs the forward half. Each half publishes the g value of every
+ * space it closes to a stamped AtomicLongArray, checks the other half's array for
+ * the same space, and lowers the shared mu with compare-and-set, so the halves
+ * never lock.
+ */
+public class BidirectionalSearch extends GridSearch {
+
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    boolean parallel;
+    GridSearch backward;
+    int startCell, goalCell;
+    int best, meet;
+    // Parallel mode only.
+    AtomicLongArray forwardClosed, backwardClosed;
+    AtomicLong bestMeeting = new AtomicLong();
+    volatile boolean done;
+    int closedStamp;
+
+    /**
+     * @param width The width (x dimension) of the gridworlds to search.
+     * @param height The height (y dimension) of the gridworlds to search.
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     * @param parallel Whether to run the two halves on two threads.
+     */
+    public BidirectionalSearch(int width, int height, boolean larger, boolean parallel) {
+        super(width, height, larger);
+        this.parallel = parallel;
+        backward = new GridSearch(width, height, larger);
+        if(parallel) {
+            forwardClosed = new AtomicLongArray(width * height);
+            backwardClosed = new AtomicLongArray(width * height);
+        }
+    }
+
+    @Override
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Search.Type heuristic) {
+        return search(gridworld, startX, startY, goalX, goalY,
+                Heuristic.of(heuristic, goalX, goalY), Heuristic.of(heuristic, startX, startY));
+    }
+
+    /**
+     * Searches with the given heuristic toward the goal. The backward half uses the
+     * same heuristic moved to the start, or Manhattan distance toward the start if it
+     * can't be moved (a HeuristicField).
+     */
+    @Override
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Heuristic heuristic) {
+        Heuristic toStart = heuristic.toward(startX, startY);
+        return search(gridworld, startX, startY, goalX, goalY, heuristic,
+                toStart != null ? toStart : new Heuristic.Manhattan(startX, startY));
+    }
+
+    /**
+     * Runs bidirectional A* search between the start and goal cells.
+     *
+     * @param toGoal The heuristic toward the goal, for the forward half.
+     * @param toStart The heuristic toward the start, for the backward half.
+     * @return true if the goal was reached, false if it is unreachable.
+     */
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Heuristic toGoal, Heuristic toStart) {
+        if(endBlocked(gridworld, startX, startY, goalX, goalY, toGoal)) {
+            backward.nextSearch();
+            goalCell = goalY * width + goalX;
+            best = INFINITY;
+            meet = -1;
+            return false; // Failure.
+        }
+        long startNanos = listener != null ? System.nanoTime() : 0;
+        goalCell = begin(startX, startY, goalX, goalY, toGoal);
+        startCell = backward.begin(goalX, goalY, startX, startY, toStart);
+        best = INFINITY;
+        meet = -1;
+        if(parallel) {
+            searchParallel(gridworld);
+        } else {
+            searchSequential(gridworld);
+        }
+        boolean found = meet >= 0;
+        if(listener != null) {
+            listener.searchFinished(found, expandedCount + backward.expandedCount,
+                    generated + backward.generated, Math.max(openPeak, backward.openPeak),
+                    decreaseKeys + backward.decreaseKeys, System.nanoTime() - startNanos);
+        }
+        return found;
+    }
+
+    void searchSequential(Grid gridworld) {
+        if(startCell == goalCell) {
+            best = 0;
+            meet = startCell;
+        }
+        while(Math.max(topF(), backward.topF()) < best) {
+            GridSearch side = openList.size() <= backward.openList.size() ? this : backward;
+            GridSearch other = side == this ? backward : this;
+            int curr = side.openList.pop();
+            side.expand(gridworld, curr);
+            // Any space the expansion reached may now be on a cheaper path through both halves.
+            int x = curr % width;
+            int y = curr / width;
+            meetAt(side, other, curr);
+            if(y-1 >= 0) meetAt(side, other, curr - width);
+            if(x+1 < width) meetAt(side, other, curr + 1);
+            if(y+1 < height) meetAt(side, other, curr + width);
+            if(x-1 >= 0) meetAt(side, other, curr - 1);
+        }
+    }
+
+    void meetAt(GridSearch side, GridSearch other, int cell) {
+        int a = side.gAt(cell);
+        int b = other.gAt(cell);
+        if(a != INFINITY && b != INFINITY && a + b < best) {
+            best = a + b;
+            meet = cell;
+        }
+    }
+
+    void searchParallel(final Grid gridworld) {
+        closedStamp++;
+        bestMeeting.set(pack(INFINITY, -1));
+        done = false;
+        // Publish both starts up front, so each half finds the other's start even if
+        // the other thread has not run yet.
+        forwardClosed.set(startCell, pack(closedStamp, 0));
+        backwardClosed.set(goalCell, pack(closedStamp, 0));
+        if(startCell == goalCell) {
+            offer(0, startCell);
+        }
+        // Forked rather than submitted: inside a pool (e.g. a BatchSearch worker) the
+        // join runs the backward half on this thread if no other thread has taken it,
+        // instead of blocking a worker on a task that may be queued behind it.
+        ForkJoinTask<?> other = ForkJoinTask.adapt(new Runnable() {
+            public void run() {
+                runHalf(gridworld, backward, backwardClosed, forwardClosed);
+            }
+        }).fork();
+        runHalf(gridworld, this, forwardClosed, backwardClosed);
+        other.join();
+        long meeting = bestMeeting.get();
+        best = (int) (meeting >>> 32);
+        meet = best == INFINITY ? -1 : (int) meeting;
+    }
+
+    // Expands one half until either half decides the search is over.
+    void runHalf(Grid gridworld, GridSearch side, AtomicLongArray mine, AtomicLongArray theirs) {
+        while(!done) {
+            if(side.openList.isEmpty() ||
+                    side.topF() >= (int) (bestMeeting.get() >>> 32)) {
+                done = true;
+                break;
+            }
+            int curr = side.openList.pop();
+            side.expand(gridworld, curr);
+            int g = side.g[curr];
+            mine.set(curr, pack(closedStamp, g));
+            long other = theirs.get(curr);
+            if((int) (other >>> 32) == closedStamp) {
+                offer(g + (int) other, curr);
+            }
+        }
+    }
+
+    // Lowers mu to cost through the given cell, if that is cheaper.
+    void offer(int cost, int cell) {
+        while(true) {
+            long current = bestMeeting.get();
+            if((int) (current >>> 32) <= cost ||
+                    bestMeeting.compareAndSet(current, pack(cost, cell))) {
+                return;
+            }
+        }
+    }
+
+    static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    /**
+     * Returns the length of the path found to the goal, or the forward half's g value
+     * for any other space.
+     */
+    @Override
+    public int g(int x, int y) {
+        int cell = y * width + x;
+        return cell == goalCell ? best : super.g(x, y);
+    }
+
+    /**
+     * Builds the Node chain for the path found to the goal: the forward half's path to
+     * the meeting space followed by the backward half's path from it to the goal.
+     */
+    @Override
+    public Node path(int x, int y) {
+        if(y * width + x != goalCell) {
+            return super.path(x, y);
+        }
+        if(meet < 0) {
+            return null;
+        }
+        int[] cells = new int[best + 1];
+        int i = g[meet];
+        for(int cell=meet; cell>=0; cell=parent[cell]) {
+            cells[i--] = cell;
+        }
+        i = g[meet];
+        for(int cell=meet; cell>=0; cell=backward.parent[cell]) {
+            cells[i++] = cell;
+        }
+        Node node = null;
+        for(i=0; i<cells.length; i++) {
+            int cx = cells[i] % width;
+            int cy = cells[i] / width;
+            node = new Node(cx, cy, i, heuristic.h(cells[i], cx, cy), node);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * A Grid that packs one bit per space into a long array, in row-major order
+ * (bit y * width + x is set if the space is blocked).
+ */
+public class BitGrid implements Grid {
+
+    int width, height;
+    long[] bits;
+    long version;
+
+    public BitGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        bits = new long[(int) (((long) width * height + 63) >>> 6)];
+    }
+
+    /**
+     * Copies the blocked spaces of another Grid.
+     */
+    public BitGrid(Grid grid) {
+        this(grid.width(), grid.height());
+        for(int y=0; y<height; y++) {
+            for(int x=0; x<width; x++) {
+                if(grid.isBlocked(x, y)) {
+                    setBlocked(x, y, true);
+                }
+            }
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        int i = y * width + x;
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public void setBlocked(int x, int y, boolean blocked) {
+        int i = y * width + x;
+        if(blocked) {
+            bits[i >>> 6] |= 1L << i;
+        } else {
+            bits[i >>> 6] &= ~(1L << i);
+        }
+        version++;
+    }
+
+    public long version() {
+        return version;
+    }
+}
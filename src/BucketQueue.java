@@ -0,0 +1,260 @@
+import java.util.Arrays;
+
+/**
+ * An open list for searches whose f values are all integers, such as A* with the
+ * Manhattan or Chebyshev heuristic and moves of cost 1. Cells are kept in buckets by
+ * f value (Dial's algorithm), so push, decrease-key and pop take O(1) amortized time
+ * instead of O(log n), and nothing is allocated once the queue is built.
+ *
+ * Ties are broken by g value in the same order IndexedHeap and NodeComparator break
+ * them: the cells of the lowest f bucket are spread over a second level of buckets
+ * by their rank, g if smaller g values are favored or cells - g if larger are. Cells
+ * are popped in order of f and then rank, and among cells with equal f and rank,
+ * most recently pushed first.
+ *
+ * A BucketQueue can stand in for an IndexedHeap anywhere the keys are whole numbers.
+ * Pushing a key with a fractional f value throws an IllegalArgumentException.
+ */
+public class BucketQueue extends IndexedHeap {
+
+    // What pos holds for a cell in an f bucket or in a rank bucket of the lowest f.
+    static final int OUTER = 0, INNER = 1;
+
+    int cells;
+    // The buckets are doubly linked lists threaded through next and prev.
+    int[] next, prev;
+    int[] outerHead;
+    int[] innerHead;
+    // The f value whose cells are spread over the rank buckets, if active.
+    boolean active;
+    int activeF;
+    int innerCount;
+    // No f bucket below outerMin and no rank bucket below minRank holds a cell.
+    int outerMin, minRank;
+    // No bucket above these has been used since the last clear.
+    int outerMax = -1, maxRank = -1;
+
+    /**
+     * @param cells The number of cells in the gridworld (width * height).
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     */
+    public BucketQueue(int cells, boolean larger) {
+        super(cells, larger);
+        this.cells = cells;
+        next = new int[cells];
+        prev = new int[cells];
+        outerHead = new int[Math.max(cells, 16)];
+        innerHead = new int[cells + 1];
+        Arrays.fill(outerHead, -1);
+        Arrays.fill(innerHead, -1);
+        outerMin = outerHead.length;
+        minRank = innerHead.length;
+    }
+
+    @Override
+    public void push(int cell, double f, int g) {
+        this.f[cell] = f;
+        this.g[cell] = g;
+        link(cell);
+        size++;
+    }
+
+    @Override
+    public void decreaseKey(int cell, double f, int g) {
+        update(cell, f, g);
+    }
+
+    @Override
+    public void update(int cell, double f, int g) {
+        unlink(cell);
+        this.f[cell] = f;
+        this.g[cell] = g;
+        link(cell);
+    }
+
+    @Override
+    public void remove(int cell) {
+        if(pos[cell] < 0) {
+            return;
+        }
+        unlink(cell);
+        pos[cell] = -1;
+        size--;
+    }
+
+    @Override
+    public int pop() {
+        int top = top();
+        if(top >= 0) {
+            unlink(top);
+            pos[top] = -1;
+            size--;
+        }
+        return top;
+    }
+
+    @Override
+    public int top() {
+        if(size == 0) {
+            return -1;
+        }
+        if(innerCount == 0) {
+            spread();
+        }
+        while(innerHead[minRank] < 0) {
+            minRank++;
+        }
+        return innerHead[minRank];
+    }
+
+    /**
+     * Empties the queue. Only the buckets used since the last clear are touched.
+     */
+    @Override
+    public void clear() {
+        for(int i=outerMin; i<=outerMax; i++) {
+            for(int cell=outerHead[i]; cell>=0; cell=next[cell]) {
+                pos[cell] = -1;
+            }
+            outerHead[i] = -1;
+        }
+        for(int i=minRank; i<=maxRank; i++) {
+            for(int cell=innerHead[i]; cell>=0; cell=next[cell]) {
+                pos[cell] = -1;
+            }
+            innerHead[i] = -1;
+        }
+        size = 0;
+        innerCount = 0;
+        active = false;
+        outerMin = outerHead.length;
+        minRank = innerHead.length;
+        outerMax = maxRank = -1;
+    }
+
+    @Override
+    int copyTo(int[] out) {
+        int count = 0;
+        for(int i=outerMin; i<=outerMax; i++) {
+            for(int cell=outerHead[i]; cell>=0; cell=next[cell]) {
+                out[count++] = cell;
+            }
+        }
+        for(int i=minRank; i<=maxRank && innerCount > 0; i++) {
+            for(int cell=innerHead[i]; cell>=0; cell=next[cell]) {
+                out[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    // Moves the cells of the lowest nonempty f bucket into the rank buckets.
+    void spread() {
+        while(outerHead[outerMin] < 0) {
+            outerMin++;
+        }
+        int cell = outerHead[outerMin];
+        outerHead[outerMin] = -1;
+        activeF = outerMin;
+        active = true;
+        while(cell >= 0) {
+            int following = next[cell];
+            linkInner(cell);
+            cell = following;
+        }
+    }
+
+    // Moves the cells of the rank buckets back into their f bucket.
+    void gather() {
+        for(int i=minRank; i<=maxRank && innerCount > 0; i++) {
+            int cell = innerHead[i];
+            innerHead[i] = -1;
+            while(cell >= 0) {
+                int following = next[cell];
+                innerCount--;
+                linkOuter(cell, activeF);
+                cell = following;
+            }
+        }
+        active = false;
+        minRank = innerHead.length;
+    }
+
+    void link(int cell) {
+        double f = this.f[cell];
+        int fi = (int) f;
+        if(fi != f || fi < 0) {
+            throw new IllegalArgumentException("BucketQueue needs whole, nonnegative f values, got "
+                    + f + ".");
+        }
+        if(g[cell] < 0 || g[cell] > cells) {
+            throw new IllegalArgumentException("g out of range: " + g[cell] + ".");
+        }
+        if(active && fi < activeF) {
+            // Only an inconsistent heuristic goes back below the lowest f.
+            gather();
+        }
+        if(active && fi == activeF) {
+            linkInner(cell);
+        } else {
+            linkOuter(cell, fi);
+        }
+    }
+
+    void linkOuter(int cell, int fi) {
+        if(fi >= outerHead.length) {
+            int length = outerHead.length;
+            outerHead = Arrays.copyOf(outerHead, Math.max(fi + 1, 2 * length));
+            Arrays.fill(outerHead, length, outerHead.length, -1);
+            if(outerMin == length) {
+                outerMin = outerHead.length;
+            }
+        }
+        prepend(outerHead, fi, cell);
+        pos[cell] = OUTER;
+        if(fi < outerMin) outerMin = fi;
+        if(fi > outerMax) outerMax = fi;
+    }
+
+    void linkInner(int cell) {
+        int rank = larger ? cells - g[cell] : g[cell];
+        prepend(innerHead, rank, cell);
+        pos[cell] = INNER;
+        innerCount++;
+        if(rank < minRank) minRank = rank;
+        if(rank > maxRank) maxRank = rank;
+    }
+
+    void unlink(int cell) {
+        int[] heads;
+        int bucket;
+        if(pos[cell] == INNER) {
+            heads = innerHead;
+            bucket = larger ? cells - g[cell] : g[cell];
+            innerCount--;
+        } else {
+            heads = outerHead;
+            bucket = (int) f[cell];
+        }
+        if(prev[cell] >= 0) {
+            next[prev[cell]] = next[cell];
+        } else {
+            heads[bucket] = next[cell];
+        }
+        if(next[cell] >= 0) {
+            prev[next[cell]] = prev[cell];
+        }
+    }
+
+    // Adds the cell to the front of a bucket.
+    void prepend(int[] heads, int bucket, int cell) {
+        int head = heads[bucket];
+        next[cell] = head;
+        prev[cell] = -1;
+        if(head >= 0) {
+            prev[head] = cell;
+        }
+        heads[bucket] = cell;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+/**
+ * The per-cell state of a SparseSearch, kept only for the cells the search has
+ * reached: an open-addressing hash table from cell (a long, y * width + x) to an
+ * entry number, and the entries' g values, parent entries, f values and open list
+ * positions in flat primitive arrays. Memory grows with the cells a search reaches,
+ * not with the size of the gridworld, and nothing is allocated per cell.
+ *
+ * Entries are numbered in the order they are added and keep their numbers until
+ * clear, so they can be linked to each other and kept on an open list by number.
+ */
+public class CellTable {
+
+    // What pos holds for an entry that is not on the open list.
+    static final int NONE = -1, CLOSED = -2;
+
+    long[] cell;
+    int[] g;
+    int[] parent;
+    double[] f;
+    int[] pos;
+    int size;
+    // Entry numbers by hash of their cell, -1 where empty. Never more than half full.
+    int[] slots;
+    int mask;
+
+    public CellTable() {
+        this(1 << 10);
+    }
+
+    /**
+     * @param expected The number of cells a search is expected to reach.
+     */
+    public CellTable(int expected) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(expected, 1) - 1) << 1);
+        cell = new long[capacity];
+        g = new int[capacity];
+        parent = new int[capacity];
+        f = new double[capacity];
+        pos = new int[capacity];
+        slots = new int[2 * capacity];
+        Arrays.fill(slots, -1);
+        mask = slots.length - 1;
+    }
+
+    /**
+     * Returns the entry of a cell, or -1 if it has none.
+     */
+    public int find(long key) {
+        for(int i=hash(key) & mask; ; i=(i+1) & mask) {
+            int entry = slots[i];
+            if(entry < 0 || cell[entry] == key) {
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * Adds an entry for a cell that has none, off the open list, and returns it.
+     */
+    public int add(long key) {
+        if(size == cell.length) {
+            grow();
+        }
+        int entry = size++;
+        cell[entry] = key;
+        pos[entry] = NONE;
+        int i = hash(key) & mask;
+        while(slots[i] >= 0) {
+            i = (i+1) & mask;
+        }
+        slots[i] = entry;
+        return entry;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry. Only the slots in use are touched, unless the table grew
+     * far beyond what the last search needed.
+     */
+    public void clear() {
+        if(size < slots.length / 16) {
+            for(int e=0; e<size; e++) {
+                for(int i=hash(cell[e]) & mask; slots[i] >= 0; i=(i+1) & mask) {
+                    slots[i] = -1;
+                }
+            }
+        } else {
+            Arrays.fill(slots, -1);
+        }
+        size = 0;
+    }
+
+    void grow() {
+        int capacity = 2 * cell.length;
+        cell = Arrays.copyOf(cell, capacity);
+        g = Arrays.copyOf(g, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        f = Arrays.copyOf(f, capacity);
+        pos = Arrays.copyOf(pos, capacity);
+        slots = new int[2 * capacity];
+        Arrays.fill(slots, -1);
+        mask = slots.length - 1;
+        for(int e=0; e<size; e++) {
+            int i = hash(cell[e]) & mask;
+            while(slots[i] >= 0) {
+                i = (i+1) & mask;
+            }
+            slots[i] = e;
+        }
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * The closed list used by the A* search algorithms. Each cell (y * width + x) is
+ * stamped with the id of the search that closed it, so membership is a single
+ * array lookup and clearing the set between searches is O(1): the current search
+ * id is advanced and every older stamp is treated as open.
+ */
+public class ClosedSet {
+
+    int width;
+    int[] stamp;
+    int search;
+
+    /**
+     * @param width The width (x dimension) of the gridworld.
+     * @param height The height (y dimension) of the gridworld.
+     */
+    public ClosedSet(int width, int height) {
+        this.width = width;
+        stamp = new int[width * height];
+        search = 1;
+    }
+
+    public void add(int cell) {
+        stamp[cell] = search;
+    }
+
+    public void add(int x, int y) {
+        stamp[y * width + x] = search;
+    }
+
+    public boolean contains(int cell) {
+        return stamp[cell] == search;
+    }
+
+    public boolean contains(int x, int y) {
+        return stamp[y * width + x] == search;
+    }
+
+    /**
+     * Empties the set by starting a new search id. The stamps only need to be
+     * wiped once the id wraps around.
+     */
+    public void clear() {
+        search++;
+        if(search == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+}
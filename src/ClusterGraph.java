@@ -0,0 +1,234 @@
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The abstract graph HierarchicalSearch plans over (HPA*). The Grid is divided into
+ * size x size clusters. Wherever two neighboring clusters share a run of open spaces
+ * along their border, the run is an entrance: the spaces on either side of its middle
+ * (or of both of its ends, for runs of 6 or more) become nodes of the graph. Nodes
+ * next to each other across a border are joined by an edge of cost 1, and within a
+ * cluster every pair of nodes is joined by the length of the shortest path between
+ * them that stays inside the cluster.
+ *
+ * Graphs are cached per Grid along with the Grid's version, and of builds a new one
+ * once the version has moved on, or every time for Grids without a version. If a
+ * single space of a Grid changes after its graph was built, call update on the cached
+ * graph with that space instead: only the cluster holding it, and the cluster across
+ * the border if the space lies on one, are rebuilt.
+ */
+public class ClusterGraph {
+
+    static final int INFINITY = Integer.MAX_VALUE;
+    // Runs at least this long get an entrance at each end instead of one in the middle.
+    static final int LONG_ENTRANCE = 6;
+
+    private static final Map<Grid, ClusterGraph> cache = new WeakHashMap<Grid, ClusterGraph>();
+
+    int width, height, size;
+    int columns, rows;
+    // The node cells of every cluster, and the distances between them (INFINITY
+    // if there is no path inside the cluster), row by row.
+    int[][] nodes;
+    int[][] distance;
+    // The index of every cell in its cluster's nodes, or -1 if it is not a node.
+    int[] slot;
+    // The version of the Grid the graph was last brought up to date with.
+    long version;
+    // Scratch space for building clusters.
+    int[] queue;
+    int[] local;
+
+    ClusterGraph(Grid grid, int size) {
+        width = grid.width();
+        height = grid.height();
+        this.size = size;
+        columns = (width + size - 1) / size;
+        rows = (height + size - 1) / size;
+        nodes = new int[columns * rows][];
+        distance = new int[columns * rows][];
+        slot = new int[width * height];
+        java.util.Arrays.fill(slot, -1);
+        queue = new int[size * size];
+        local = new int[size * size];
+        buildAll(grid);
+    }
+
+    /**
+     * Returns the graph for the given Grid with clusters of the given size, building a
+     * new one if none is cached or the Grid has changed since it was built.
+     */
+    public static synchronized ClusterGraph of(Grid grid, int size) {
+        ClusterGraph graph = cache.get(grid);
+        if(graph == null || graph.size != size || graph.version != grid.version() ||
+                graph.version < 0) {
+            graph = new ClusterGraph(grid, size);
+            cache.put(grid, graph);
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the cached graph for the given Grid with clusters of the given size
+     * whatever the Grid's version, or null if there is none.
+     */
+    public static synchronized ClusterGraph cached(Grid grid, int size) {
+        ClusterGraph graph = cache.get(grid);
+        return graph != null && graph.size == size ? graph : null;
+    }
+
+    /**
+     * Drops the cached graph of a Grid.
+     */
+    public static synchronized void invalidate(Grid grid) {
+        cache.remove(grid);
+    }
+
+    /**
+     * Rebuilds the clusters affected by a change to the space (x, y) of the Grid. If
+     * the Grid has changed in any other way since the graph was brought up to date,
+     * every cluster is rebuilt. It must not be called while the graph is being searched.
+     */
+    public synchronized void update(Grid grid, int x, int y) {
+        if(version < 0 || grid.version() != version + 1) {
+            buildAll(grid);
+            return;
+        }
+        version = grid.version();
+        int cx = x / size;
+        int cy = y / size;
+        build(grid, cy * columns + cx);
+        // The entrances on a border are shared with the cluster across it.
+        if(x % size == 0 && cx > 0) build(grid, cy * columns + cx-1);
+        if(x % size == size-1 && cx+1 < columns) build(grid, cy * columns + cx+1);
+        if(y % size == 0 && cy > 0) build(grid, (cy-1) * columns + cx);
+        if(y % size == size-1 && cy+1 < rows) build(grid, (cy+1) * columns + cx);
+    }
+
+    // Rebuilds every cluster and records the version of the Grid they were built from.
+    void buildAll(Grid grid) {
+        version = grid.version();
+        for(int c=0; c<columns * rows; c++) {
+            build(grid, c);
+        }
+    }
+
+    /**
+     * The cluster holding the space (x, y).
+     */
+    public int cluster(int x, int y) {
+        return (y / size) * columns + x / size;
+    }
+
+    /**
+     * Writes the length of the shortest path inside its cluster from the given cell
+     * to every space of the cluster into out, indexed by local(cell). Unreachable
+     * spaces are set to INFINITY. Both arrays hold size * size ints; queue is scratch
+     * space, so searches on several threads can share the graph.
+     */
+    public void distances(Grid grid, int cell, int[] out, int[] queue) {
+        int x = cell % width;
+        int y = cell / width;
+        int c = cluster(x, y);
+        int left = (c % columns) * size;
+        int top = (c / columns) * size;
+        int right = Math.min(left + size, width);
+        int bottom = Math.min(top + size, height);
+        java.util.Arrays.fill(out, INFINITY);
+        if(grid.isBlocked(x, y)) {
+            return;
+        }
+        int head = 0, tail = 0;
+        out[local(cell)] = 0;
+        queue[tail++] = cell;
+        while(head < tail) {
+            int curr = queue[head++];
+            int cx = curr % width;
+            int cy = curr / width;
+            int d = out[local(curr)] + 1;
+            if(cy-1 >= top) tail = visit(grid, out, queue, cx, cy-1, d, tail);
+            if(cx+1 < right) tail = visit(grid, out, queue, cx+1, cy, d, tail);
+            if(cy+1 < bottom) tail = visit(grid, out, queue, cx, cy+1, d, tail);
+            if(cx-1 >= left) tail = visit(grid, out, queue, cx-1, cy, d, tail);
+        }
+    }
+
+    int visit(Grid grid, int[] out, int[] queue, int x, int y, int d, int tail) {
+        int cell = y * width + x;
+        if(out[local(cell)] == INFINITY && !grid.isBlocked(x, y)) {
+            out[local(cell)] = d;
+            queue[tail++] = cell;
+        }
+        return tail;
+    }
+
+    /**
+     * The index of a cell within its cluster, for the arrays distances fills.
+     */
+    public int local(int cell) {
+        return (cell / width % size) * size + cell % width % size;
+    }
+
+    // Finds the entrances on a cluster's four borders and the distances between them.
+    void build(Grid grid, int c) {
+        if(nodes[c] != null) {
+            for(int cell : nodes[c]) {
+                slot[cell] = -1;
+            }
+        }
+        int left = (c % columns) * size;
+        int top = (c / columns) * size;
+        int right = Math.min(left + size, width) - 1;
+        int bottom = Math.min(top + size, height) - 1;
+        int[] found = new int[8 * size];
+        int count = 0;
+        if(top > 0) count = entrances(grid, found, count, left, top, 1, 0, right-left+1, 0, -1);
+        if(right < width-1) count = entrances(grid, found, count, right, top, 0, 1, bottom-top+1, 1, 0);
+        if(bottom < height-1) count = entrances(grid, found, count, left, bottom, 1, 0, right-left+1, 0, 1);
+        if(left > 0) count = entrances(grid, found, count, left, top, 0, 1, bottom-top+1, -1, 0);
+
+        // A corner space can be found on two borders; it is one node.
+        int n = 0;
+        int[] cells = new int[count];
+        for(int i=0; i<count; i++) {
+            if(slot[found[i]] < 0) {
+                slot[found[i]] = n;
+                cells[n++] = found[i];
+            }
+        }
+        nodes[c] = java.util.Arrays.copyOf(cells, n);
+        distance[c] = new int[n * n];
+        for(int i=0; i<n; i++) {
+            distances(grid, nodes[c][i], local, queue);
+            for(int j=0; j<n; j++) {
+                distance[c][i * n + j] = local[local(nodes[c][j])];
+            }
+        }
+    }
+
+    // Scans length spaces of one border from (x, y), stepping by (sx, sy), for runs open on
+    // both sides; (ox, oy) points across it. Adds the entrances to found, returns the count.
+    int entrances(Grid grid, int[] found, int count, int x, int y, int sx, int sy,
+                  int length, int ox, int oy) {
+        int run = 0;
+        for(int i=0; i<=length; i++) {
+            int px = x + i * sx;
+            int py = y + i * sy;
+            if(i < length && !grid.isBlocked(px, py) && !grid.isBlocked(px+ox, py+oy)) {
+                run++;
+                continue;
+            }
+            if(run > 0) {
+                int first = i - run;
+                if(run >= LONG_ENTRANCE) {
+                    found[count++] = (y + first * sy) * width + x + first * sx;
+                    found[count++] = (y + (i-1) * sy) * width + x + (i-1) * sx;
+                } else {
+                    int middle = first + run / 2;
+                    found[count++] = (y + middle * sy) * width + x + middle * sx;
+                }
+                run = 0;
+            }
+        }
+        return count;
+    }
+}
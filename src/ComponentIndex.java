@@ -0,0 +1,240 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Labels every open space of a Grid with the connected component it belongs to, so
+ * whether one space can be reached from another is answered in O(1). A search whose
+ * start and goal are in different components can fail at once instead of expanding
+ * everything reachable from the start first.
+ *
+ * The indexes returned by of are shared: they are cached per Grid, never changed
+ * once built, and replaced by a new one built by flood fill once the Grid's version
+ * has moved on, so any number of threads can read them. An index made with the
+ * constructor belongs to its caller and can be kept up to date as the Grid changes.
+ * When spaces are only ever blocked, as the agent's view of the gridworld is in
+ * Repeated A*, call blocked after each one: components can then only split, and the
+ * split is found by searching from the blocked space's neighbors in lockstep until
+ * all but one of them have met or run out of spaces. Only the pieces that broke off
+ * are relabeled, so the cost is bounded by the size of the smaller pieces rather
+ * than the whole component.
+ */
+public class ComponentIndex {
+
+    // What the searches of a split are doing.
+    static final int ACTIVE = 0, MERGED = 1, DONE = 2;
+
+    private static final Map<Grid, ComponentIndex> cache = new WeakHashMap<Grid, ComponentIndex>();
+
+    int width, height;
+    // The component of every cell, or -1 if it is blocked.
+    int[] label;
+    int nextLabel;
+    long version;
+    // Scratch space for splits: which search visited each cell, and what each visited.
+    int[] mark;
+    int markBase;
+    int[][] visited = new int[4][];
+    int[] head = new int[4], tail = new int[4], state = new int[4];
+    // Whether of handed this index out, so it must not change.
+    boolean shared;
+
+    /**
+     * Builds an index of the Grid as it is now, for the caller alone.
+     */
+    public ComponentIndex(Grid grid) {
+        width = grid.width();
+        height = grid.height();
+        label = new int[width * height];
+        build(grid);
+    }
+
+    /**
+     * Returns the shared index for the given Grid, building a new one if none is cached
+     * or the Grid has changed since it was built. Indexes already handed out are left
+     * as they were.
+     */
+    public static synchronized ComponentIndex of(Grid grid) {
+        ComponentIndex index = cache.get(grid);
+        if(index == null || index.version != grid.version() || index.version < 0) {
+            index = new ComponentIndex(grid);
+            index.shared = true;
+            cache.put(grid, index);
+        }
+        return index;
+    }
+
+    /**
+     * Drops the cached index of a Grid.
+     */
+    public static synchronized void invalidate(Grid grid) {
+        cache.remove(grid);
+    }
+
+    /**
+     * Whether (x2, y2) can be reached from (x1, y1). Always false if either is blocked.
+     */
+    public boolean connected(int x1, int y1, int x2, int y2) {
+        int a = label[y1 * width + x1];
+        return a >= 0 && a == label[y2 * width + x2];
+    }
+
+    /**
+     * The component of the space (x, y), or -1 if it is blocked. Two spaces are
+     * connected if and only if they are in the same component.
+     */
+    public int component(int x, int y) {
+        return label[y * width + x];
+    }
+
+    /**
+     * Updates the index after the space (x, y) of the Grid was blocked. If anything
+     * else changed since the index was last brought up to date, it is rebuilt instead.
+     * Only indexes made with the constructor can be updated; for those returned by of,
+     * this throws an IllegalStateException.
+     */
+    public void blocked(Grid grid, int x, int y) {
+        if(shared) {
+            throw new IllegalStateException("Indexes from of are shared and can't be updated.");
+        }
+        if(version < 0 || grid.version() != version + 1 || !grid.isBlocked(x, y)) {
+            build(grid);
+            return;
+        }
+        version = grid.version();
+        int cell = y * width + x;
+        int component = label[cell];
+        if(component < 0) {
+            return;
+        }
+        label[cell] = -1;
+        int starts = 0;
+        for(int d=0; d<4; d++) {
+            int next = neighbor(cell, d);
+            if(next >= 0 && label[next] == component) {
+                if(visited[starts] == null) {
+                    visited[starts] = new int[64];
+                }
+                visited[starts][0] = next;
+                starts++;
+            }
+        }
+        if(starts > 1) {
+            split(component, starts);
+        }
+    }
+
+    // Searches from each neighbor of the blocked space in turn, one space at a time.
+    // A search that reaches a space of another running search stops, as the other
+    // covers its spaces from then on; one that runs out of spaces has found a piece
+    // that broke off, which gets a new label. The last search left keeps the old one.
+    void split(int component, int starts) {
+        if(mark == null) {
+            mark = new int[width * height];
+        }
+        if(markBase > Integer.MAX_VALUE - 8) {
+            Arrays.fill(mark, 0);
+            markBase = 0;
+        }
+        int base = markBase + 1;
+        markBase += starts;
+        for(int i=0; i<starts; i++) {
+            mark[visited[i][0]] = base + i;
+            head[i] = 0;
+            tail[i] = 1;
+            state[i] = ACTIVE;
+        }
+        int active = starts;
+        while(active > 1) {
+            for(int i=0; i<starts && active > 1; i++) {
+                if(state[i] != ACTIVE) {
+                    continue;
+                }
+                if(head[i] == tail[i]) {
+                    state[i] = DONE;
+                    active--;
+                    int[] cells = visited[i];
+                    for(int j=0; j<tail[i]; j++) {
+                        label[cells[j]] = nextLabel;
+                    }
+                    nextLabel++;
+                    continue;
+                }
+                int curr = visited[i][head[i]++];
+                for(int d=0; d<4; d++) {
+                    int next = neighbor(curr, d);
+                    if(next < 0 || label[next] != component || mark[next] == base + i) {
+                        continue;
+                    }
+                    int owner = mark[next] - base;
+                    if(owner >= 0 && owner < starts && state[owner] == ACTIVE) {
+                        state[i] = MERGED;
+                        active--;
+                        break;
+                    }
+                    mark[next] = base + i;
+                    if(tail[i] == visited[i].length) {
+                        visited[i] = Arrays.copyOf(visited[i], 2 * tail[i]);
+                    }
+                    visited[i][tail[i]++] = next;
+                }
+            }
+        }
+    }
+
+    // Labels every open cell by flood fill.
+    void build(Grid grid) {
+        version = grid.version();
+        nextLabel = 0;
+        Arrays.fill(label, Integer.MIN_VALUE);
+        int[] queue = new int[64];
+        for(int cell=0; cell<label.length; cell++) {
+            if(label[cell] != Integer.MIN_VALUE) {
+                continue;
+            }
+            if(grid.isBlocked(cell % width, cell / width)) {
+                label[cell] = -1;
+                continue;
+            }
+            int component = nextLabel++;
+            label[cell] = component;
+            queue[0] = cell;
+            int head = 0, tail = 1;
+            while(head < tail) {
+                int curr = queue[head++];
+                for(int d=0; d<4; d++) {
+                    int next = neighbor(curr, d);
+                    if(next < 0 || label[next] != Integer.MIN_VALUE) {
+                        continue;
+                    }
+                    if(grid.isBlocked(next % width, next / width)) {
+                        label[next] = -1;
+                        continue;
+                    }
+                    label[next] = component;
+                    if(tail == queue.length) {
+                        // Reuse the front of the queue before growing it.
+                        System.arraycopy(queue, head, queue, 0, tail - head);
+                        tail -= head;
+                        head = 0;
+                        if(tail == queue.length) {
+                            queue = Arrays.copyOf(queue, 2 * queue.length);
+                        }
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    // The cell next to the given one going up, right, down or left, or -1 past the edge.
+    int neighbor(int cell, int d) {
+        int x = cell % width;
+        switch(d) {
+            case 0: return cell >= width ? cell - width : -1;
+            case 1: return x + 1 < width ? cell + 1 : -1;
+            case 2: return cell + width < label.length ? cell + width : -1;
+            default: return x > 0 ? cell - 1 : -1;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * An incremental planner (D* Lite) for an agent that discovers blocked spaces as it
+ * travels. The search runs backwards from the goal to the agent and keeps its g and
+ * rhs values between moves, so when a new blocked space is found only the part of
+ * the search affected by it is repaired instead of planning again from scratch.
+ *
+ * Cells are indexed by y * width + x. A cell is locally consistent when g == rhs,
+ * and only inconsistent cells are kept in the open list.
+ */
+public class DStarLite {
+
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    int width, height;
+    Grid agentWorld;
+    Search.Type heuristic;
+    int[] g;
+    int[] rhs;
+    IndexedHeap openList;
+    int start, goal, last;
+    double km;
+    int[] pathCells;
+    int pathLength;
+    int expanded, generated, decreaseKeys, openPeak;
+    SearchListener listener;
+
+    /**
+     * @param agentWorld The gridworld as the agent currently knows it. Blocked spaces
+     *                   added to it must be reported through blocked.
+     * @param heuristic The heuristic formula to use. It must be consistent.
+     */
+    public DStarLite(Grid agentWorld, int startX, int startY, int goalX, int goalY,
+                     Search.Type heuristic) {
+        width = agentWorld.width();
+        height = agentWorld.height();
+        this.agentWorld = agentWorld;
+        this.heuristic = heuristic;
+        g = new int[width * height];
+        rhs = new int[width * height];
+        java.util.Arrays.fill(g, INFINITY);
+        java.util.Arrays.fill(rhs, INFINITY);
+        openList = new IndexedHeap(width * height, false);
+        pathCells = new int[width * height];
+
+        start = startY * width + startX;
+        goal = goalY * width + goalX;
+        last = start;
+        rhs[goal] = 0;
+        openList.push(goal, h(goal), 0);
+    }
+
+    /**
+     * Brings the g values up to date with everything the agent knows so far.
+     *
+     * @return true if the goal can still be reached from the agent's position.
+     */
+    public boolean plan() {
+        long startNanos = listener != null ? System.nanoTime() : 0;
+        expanded = generated = decreaseKeys = 0;
+        openPeak = openList.size();
+        // A blocked goal or agent space can't be planned through, as in the engines.
+        boolean open = !agentWorld.isBlocked(start % width, start / width) &&
+                !agentWorld.isBlocked(goal % width, goal / width);
+        while(open && !openList.isEmpty() &&
+                (keyLess(openList.top(), start) || rhs[start] != g[start])) {
+            int u = openList.top();
+            double oldF = openList.f[u];
+            int oldG = openList.g[u];
+            int k2 = Math.min(g[u], rhs[u]);
+            double k1 = key1(u, k2);
+            if(oldF < k1 || (oldF == k1 && oldG < k2)) {
+                openList.update(u, k1, k2);
+                decreaseKeys++;
+            } else if(g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                openList.pop();
+                expanded++;
+                updateNeighbors(u);
+            } else {
+                g[u] = INFINITY;
+                expanded++;
+                updateVertex(u);
+                updateNeighbors(u);
+            }
+        }
+        boolean found = open && rhs[start] != INFINITY;
+        if(listener != null) {
+            listener.searchFinished(found, expanded, generated, openPeak, decreaseKeys,
+                    System.nanoTime() - startNanos);
+        }
+        return found;
+    }
+
+    /**
+     * Sets the listener told about every plan, or null for none.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Moves the agent's position used by the planner, e.g. after it traveled along
+     * part of the path.
+     */
+    public void moveTo(int x, int y) {
+        start = y * width + x;
+    }
+
+    /**
+     * Repairs the search after the agent discovered a blocked space. The space must
+     * already be marked blocked in agentWorld.
+     */
+    public void blocked(int x, int y) {
+        km += Search.heuristicCalc(heuristic, last % width, last / width,
+                start % width, start / width);
+        last = start;
+        int cell = y * width + x;
+        updateVertex(cell);
+        updateNeighbors(cell);
+    }
+
+    /**
+     * Follows the g values from the agent's position to the goal.
+     *
+     * @return The path as a Node chain in travel order (the agent's Node first), or
+     * null if the goal cannot be reached.
+     */
+    public Node path() {
+        if(rhs[start] == INFINITY) {
+            return null;
+        }
+        pathLength = 0;
+        int cell = start;
+        pathCells[pathLength++] = cell;
+        while(cell != goal && pathLength < pathCells.length) {
+            cell = bestNeighbor(cell);
+            if(cell < 0) {
+                return null;
+            }
+            pathCells[pathLength++] = cell;
+        }
+        Node node = null;
+        for(int i=pathLength-1; i>=0; i--) {
+            int x = pathCells[i] % width;
+            int y = pathCells[i] / width;
+            Node prev = new Node(x, y, i, h(pathCells[i]), null);
+            prev.tree = node;
+            node = prev;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the cell after (x, y) on the last path built by path(), or -1 if (x, y)
+     * is not on it or is its last space.
+     */
+    public int nextOnPath(int x, int y) {
+        int cell = y * width + x;
+        for(int i=0; i<pathLength-1; i++) {
+            if(pathCells[i] == cell) {
+                return pathCells[i+1];
+            }
+        }
+        return -1;
+    }
+
+    // The open neighbor with the lowest g value, or -1 if every neighbor is unreachable.
+    int bestNeighbor(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        int best = -1;
+        int bestG = INFINITY;
+        if(y-1 >= 0 && !agentWorld.isBlocked(x, y-1) && g[cell-width] < bestG) {
+            best = cell - width;
+            bestG = g[best];
+        }
+        if(x+1 < width && !agentWorld.isBlocked(x+1, y) && g[cell+1] < bestG) {
+            best = cell + 1;
+            bestG = g[best];
+        }
+        if(y+1 < height && !agentWorld.isBlocked(x, y+1) && g[cell+width] < bestG) {
+            best = cell + width;
+            bestG = g[best];
+        }
+        if(x-1 >= 0 && !agentWorld.isBlocked(x-1, y) && g[cell-1] < bestG) {
+            best = cell - 1;
+        }
+        return best;
+    }
+
+    void updateNeighbors(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+        if(y-1 >= 0) updateVertex(cell - width);
+        if(x+1 < width) updateVertex(cell + 1);
+        if(y+1 < height) updateVertex(cell + width);
+        if(x-1 >= 0) updateVertex(cell - 1);
+    }
+
+    void updateVertex(int cell) {
+        if(cell != goal) {
+            int x = cell % width;
+            int y = cell / width;
+            if(agentWorld.isBlocked(x, y)) {
+                rhs[cell] = INFINITY;
+            } else {
+                int best = bestNeighbor(cell);
+                rhs[cell] = best < 0 || g[best] == INFINITY ? INFINITY : g[best] + 1;
+            }
+        }
+        openList.remove(cell);
+        if(g[cell] != rhs[cell]) {
+            int k2 = Math.min(g[cell], rhs[cell]);
+            openList.push(cell, key1(cell, k2), k2);
+            generated++;
+            if(openList.size() > openPeak) openPeak = openList.size();
+        }
+    }
+
+    double key1(int cell, int k2) {
+        return k2 == INFINITY ? Double.POSITIVE_INFINITY : k2 + h(cell) + km;
+    }
+
+    // Whether the key of cell a (as stored in the open list) is below the current key of b.
+    boolean keyLess(int a, int b) {
+        int k2 = Math.min(g[b], rhs[b]);
+        double k1 = key1(b, k2);
+        return openList.f[a] < k1 || (openList.f[a] == k1 && openList.g[a] < k2);
+    }
+
+    // The heuristic from the agent's position to the given cell.
+    double h(int cell) {
+        return Search.heuristicCalc(heuristic, start % width, start / width,
+                cell % width, cell / width);
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs Repeated A* over many seeded gridworlds with every combination of direction,
+ * heuristic and tie-breaking mode, spread across all cores, and writes one row per
+ * run as CSV or JSON. Gridworld i is generated from seed + i, so a suite can be rerun
+ * exactly. Each worker generates its own gridworld and runs every configuration on
+ * it with its own SearchMetrics, so workers share nothing but the results array.
+ *
+ * For each run it reports whether the goal was reached, the moves the agent made on
+ * its way, the number of searches, the expansions and the runtime. The averages of
+ * each configuration are printed to System.err.
+ *
+ * Usage: java ExperimentRunner [grids=50] [size=1001] [p=0.3] [seed=1]
+ *        [directions=forward,backward,adaptive,incremental,hierarchical]
+ *        [heuristics=manhattan] [larger=true,false]
+ *        [threads=<cores>] [format=csv|json] [out=<file>]
+ */
+public class ExperimentRunner {
+
+    // The directions repeatedAStarSearch travels in; the others name single moves.
+    static final List<Search.Direction> TRAVEL = Arrays.asList(Search.Direction.FORWARD,
+            Search.Direction.BACKWARD, Search.Direction.ADAPTIVE, Search.Direction.INCREMENTAL,
+            Search.Direction.HIERARCHICAL);
+
+    int grids = 50;
+    int size = 1001;
+    float p = 0.3f;
+    long seed = 1;
+    Search.Direction[] directions = {Search.Direction.FORWARD, Search.Direction.BACKWARD};
+    Search.Type[] heuristics = {Search.Type.MANHATTAN};
+    boolean[] larger = {true, false};
+    int threads = Runtime.getRuntime().availableProcessors();
+    String format = "csv";
+    String out;
+
+    public static void main(String[] args) throws IOException {
+        ExperimentRunner runner = new ExperimentRunner();
+        for(String arg : args) {
+            runner.option(arg);
+        }
+        Writer writer = new BufferedWriter(runner.out == null ?
+                new OutputStreamWriter(System.out) : new FileWriter(runner.out));
+        try {
+            Result[] results = runner.run();
+            runner.write(results, writer);
+            System.err.print(runner.summary(results));
+        } finally {
+            if(runner.out == null) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        }
+    }
+
+    void option(String arg) {
+        int split = arg.indexOf('=');
+        if(split < 0) {
+            throw new IllegalArgumentException("Expected name=value, got " + arg);
+        }
+        String name = arg.substring(0, split);
+        String value = arg.substring(split+1);
+        String[] values = value.split(",");
+        if(name.equals("grids")) {
+            grids = Integer.parseInt(value);
+            if(grids <= 0) {
+                throw new IllegalArgumentException("grids must be positive, got " + value);
+            }
+        } else if(name.equals("size")) {
+            size = Integer.parseInt(value);
+        } else if(name.equals("p")) {
+            p = Float.parseFloat(value);
+        } else if(name.equals("seed")) {
+            seed = Long.parseLong(value);
+        } else if(name.equals("directions")) {
+            directions = new Search.Direction[values.length];
+            for(int i=0; i<values.length; i++) {
+                for(Search.Direction direction : TRAVEL) {
+                    if(direction.name().equalsIgnoreCase(values[i])) {
+                        directions[i] = direction;
+                    }
+                }
+                if(directions[i] == null) {
+                    throw new IllegalArgumentException("Unknown direction " + values[i] +
+                            ", expected one of " + TRAVEL);
+                }
+            }
+        } else if(name.equals("heuristics")) {
+            heuristics = new Search.Type[values.length];
+            for(int i=0; i<values.length; i++) {
+                heuristics[i] = Search.Type.valueOf(values[i].toUpperCase(Locale.ROOT));
+            }
+        } else if(name.equals("larger")) {
+            larger = new boolean[values.length];
+            for(int i=0; i<values.length; i++) larger[i] = Boolean.parseBoolean(values[i]);
+        } else if(name.equals("threads")) {
+            threads = Integer.parseInt(value);
+        } else if(name.equals("format")) {
+            if(!value.equals("csv") && !value.equals("json")) {
+                throw new IllegalArgumentException("Unknown format " + value);
+            }
+            format = value;
+        } else if(name.equals("out")) {
+            out = value;
+        } else {
+            throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    /**
+     * One run of Repeated A* with one configuration on one gridworld.
+     */
+    static class Result {
+        int grid;
+        long seed;
+        Search.Direction direction;
+        Search.Type heuristic;
+        boolean larger;
+        boolean found;
+        long moves, searches, expanded, generated;
+        long nanos;
+    }
+
+    /**
+     * Runs every configuration on every gridworld.
+     *
+     * @return The results, by gridworld and then by configuration.
+     */
+    Result[] run() {
+        if(grids <= 0) {
+            throw new IllegalArgumentException("grids must be positive, got " + grids);
+        }
+        List<Object[]> configurations = new ArrayList<Object[]>();
+        for(Search.Direction direction : directions) {
+            for(Search.Type heuristic : heuristics) {
+                for(boolean l : larger) {
+                    configurations.add(new Object[]{direction, heuristic, l});
+                }
+            }
+        }
+        Result[] results = new Result[grids * configurations.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new Task(configurations, results, size, p, seed, 0, grids));
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    static class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        List<Object[]> configurations;
+        Result[] results;
+        int size;
+        float p;
+        long seed;
+        int from, to;
+
+        Task(List<Object[]> configurations, Result[] results, int size, float p, long seed,
+             int from, int to) {
+            this.configurations = configurations;
+            this.results = results;
+            this.size = size;
+            this.p = p;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Task(configurations, results, size, p, seed, from, middle),
+                        new Task(configurations, results, size, p, seed, middle, to));
+                return;
+            }
+            // One gridworld per task: generate it and run every configuration on it.
+            Grid gridworld = GridGenerator.generate(size, size, p, seed + from, 0, 0,
+                    size-1, size-1, false, getPool());
+            SearchMetrics metrics = new SearchMetrics();
+            for(int c=0; c<configurations.size(); c++) {
+                Object[] configuration = configurations.get(c);
+                Result result = new Result();
+                result.grid = from;
+                result.seed = seed + from;
+                result.direction = (Search.Direction) configuration[0];
+                result.heuristic = (Search.Type) configuration[1];
+                result.larger = (Boolean) configuration[2];
+                metrics.reset();
+                long start = System.nanoTime();
+                Node path = Search.repeatedAStarSearch(gridworld, 0, 0, size-1, size-1,
+                        result.direction, result.heuristic, new NodeComparator(result.larger),
+                        metrics);
+                result.nanos = System.nanoTime() - start;
+                result.found = path.x >= 0;
+                result.moves = metrics.moves();
+                result.searches = metrics.searches();
+                result.expanded = metrics.expanded();
+                result.generated = metrics.generated();
+                results[from * configurations.size() + c] = result;
+            }
+        }
+    }
+
+    /**
+     * Averages the results of each configuration over every gridworld.
+     */
+    String summary(Result[] results) {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "%-12s %-10s %-7s %6s %12s %12s %12s%n", "Direction", "Heuristic", "Larger",
+                "Found", "Moves", "Expanded", "Millis"));
+        int configurations = results.length / grids;
+        for(int c=0; c<configurations; c++) {
+            long found = 0, moves = 0, expanded = 0, nanos = 0;
+            for(int grid=0; grid<grids; grid++) {
+                Result r = results[grid * configurations + c];
+                if(r.found) {
+                    found++;
+                    moves += r.moves;
+                }
+                expanded += r.expanded;
+                nanos += r.nanos;
+            }
+            Result r = results[c];
+            summary.append(String.format(Locale.ROOT, "%-12s %-10s %-7s %6d %12.1f %12.1f %12.3f%n",
+                    r.direction, r.heuristic, r.larger, found,
+                    found == 0 ? 0.0 : (double) moves / found, (double) expanded / grids,
+                    nanos / 1e6 / grids));
+        }
+        return summary.toString();
+    }
+
+    void write(Result[] results, Writer writer) throws IOException {
+        if(format.equals("json")) {
+            writer.write("[\n");
+            for(int i=0; i<results.length; i++) {
+                Result r = results[i];
+                writer.write(String.format(Locale.ROOT, "  {\"grid\": %d, \"seed\": %d, " +
+                                "\"size\": %d, \"p\": %s, \"direction\": \"%s\", " +
+                                "\"heuristic\": \"%s\", \"larger\": %s, \"found\": %s, " +
+                                "\"moves\": %d, \"searches\": %d, \"expanded\": %d, " +
+                                "\"generated\": %d, \"millis\": %.3f}%s\n",
+                        r.grid, r.seed, size, p, r.direction, r.heuristic, r.larger, r.found,
+                        r.moves, r.searches, r.expanded, r.generated, r.nanos / 1e6,
+                        i < results.length-1 ? "," : ""));
+            }
+            writer.write("]\n");
+        } else if(format.equals("csv")) {
+            writer.write("grid,seed,size,p,direction,heuristic,larger,found,moves," +
+                    "searches,expanded,generated,millis\n");
+            for(Result r : results) {
+                writer.write(String.format(Locale.ROOT, "%d,%d,%d,%s,%s,%s,%s,%s,%d,%d,%d,%d,%.3f\n",
+                        r.grid, r.seed, size, p, r.direction, r.heuristic, r.larger, r.found,
+                        r.moves, r.searches, r.expanded, r.generated, r.nanos / 1e6));
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+}
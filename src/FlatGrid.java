@@ -0,0 +1,37 @@
+/**
+ * A Grid stored in a single row-major byte array, one byte per space. Cheaper to
+ * read than a BitGrid, at eight times the memory.
+ */
+public class FlatGrid implements Grid {
+
+    int width, height;
+    byte[] cells;
+    long version;
+
+    public FlatGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        cells = new byte[width * height];
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        return cells[y * width + x] != 0;
+    }
+
+    public void setBlocked(int x, int y, boolean blocked) {
+        cells[y * width + x] = (byte) (blocked ? 1 : 0);
+        version++;
+    }
+
+    public long version() {
+        return version;
+    }
+}
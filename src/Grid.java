@@ -0,0 +1,33 @@
+/**
+ * A gridworld the search algorithms can travel through. Spaces are indexed by
+ * (x, y): x is the horizontal axis and y is the vertical, as in the int[][]
+ * gridworlds. A space is either blocked or open.
+ */
+public interface Grid {
+
+    /**
+     * @return The size of the gridworld along the x axis.
+     */
+    int width();
+
+    /**
+     * @return The size of the gridworld along the y axis.
+     */
+    int height();
+
+    boolean isBlocked(int x, int y);
+
+    /**
+     * Marks a space as blocked or open. Read-only gridworlds throw an exception.
+     */
+    void setBlocked(int x, int y, boolean blocked);
+
+    /**
+     * Counts the calls to setBlocked so far, so anything derived from the gridworld
+     * (e.g. a PathCache entry) can tell whether it is still current. Gridworlds that
+     * don't count them return -1, the default: nothing derived from them is kept.
+     */
+    default long version() {
+        return -1;
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates random gridworlds from a seed, straight into a BitGrid, filling rows in
+ * parallel on a ForkJoinPool. Every row draws from its own SplittableRandom, split
+ * off the seed's in row order before any filling starts, so a seed always gives the
+ * same gridworld bit for bit no matter how many threads fill it.
+ *
+ * Rows are handed out in runs that start on a long boundary of the BitGrid, so no
+ * two threads ever write the same long.
+ */
+public class GridGenerator {
+
+    // Tasks stop splitting below this many rows.
+    static final int THRESHOLD = 64;
+
+    /**
+     * Generates a width x height gridworld where each space is blocked with
+     * probability p. The start (0, 0) and goal (width-1, height-1) are always open.
+     */
+    public static BitGrid generate(int width, int height, float p, long seed) {
+        return generate(width, height, p, seed, false);
+    }
+
+    /**
+     * Generates a gridworld as above.
+     *
+     * @param connected Whether to open a path from (0, 0) to (width-1, height-1) if
+     *                  the goal would otherwise be unreachable.
+     */
+    public static BitGrid generate(int width, int height, float p, long seed, boolean connected) {
+        return generate(width, height, p, seed, 0, 0, width-1, height-1, connected,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a width x height gridworld where each space is blocked with
+     * probability p. The start and goal are always open.
+     *
+     * @param connected Whether to open a path from the start to the goal if the goal
+     *                  would otherwise be unreachable.
+     * @param pool The pool to fill the rows on.
+     */
+    public static BitGrid generate(int width, int height, float p, long seed,
+                                   int startX, int startY, int goalX, int goalY,
+                                   boolean connected, ForkJoinPool pool) {
+        BitGrid gridworld = new BitGrid(width, height);
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom[] rows = new SplittableRandom[height];
+        for(int y=0; y<height; y++) {
+            rows[y] = random.split();
+        }
+        // The fewest rows that always end on a long boundary.
+        int step = 64 / gcd(width, 64);
+        pool.invoke(new Fill(gridworld, rows, p, step, 0, height));
+        // Fill sets the bits without setBlocked, so count its change here.
+        gridworld.version++;
+        gridworld.setBlocked(startX, startY, false);
+        gridworld.setBlocked(goalX, goalY, false);
+        if(connected && !reachable(gridworld, startX, startY, goalX, goalY)) {
+            carve(gridworld, startX, startY, goalX, goalY);
+        }
+        return gridworld;
+    }
+
+    static class Fill extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        BitGrid gridworld;
+        SplittableRandom[] rows;
+        float p;
+        int step, from, to;
+
+        Fill(BitGrid gridworld, SplittableRandom[] rows, float p, int step, int from, int to) {
+            this.gridworld = gridworld;
+            this.rows = rows;
+            this.p = p;
+            this.step = step;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > Math.max(THRESHOLD, 2 * step)) {
+                int middle = from + ((to - from) / 2 / step) * step;
+                invokeAll(new Fill(gridworld, rows, p, step, from, middle),
+                        new Fill(gridworld, rows, p, step, middle, to));
+                return;
+            }
+            int width = gridworld.width;
+            long[] bits = gridworld.bits;
+            // nextDouble() <= p, compared on the 53 random bits nextDouble is made of.
+            long threshold = (long) Math.floor((double) p * (1L << 53));
+            for(int y=from; y<to; y++) {
+                SplittableRandom random = rows[y];
+                int i = y * width;
+                for(int x=0; x<width; x++, i++) {
+                    if((random.nextLong() >>> 11) <= threshold) {
+                        bits[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        }
+    }
+
+    // Whether the goal can be reached from the start, by breadth first search.
+    static boolean reachable(Grid gridworld, int startX, int startY, int goalX, int goalY) {
+        int width = gridworld.width();
+        int height = gridworld.height();
+        long[] visited = new long[(int) (((long) width * height + 63) >>> 6)];
+        int[] queue = new int[64];
+        int head = 0, tail = 0;
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        visited[start >>> 6] |= 1L << start;
+        queue[tail++] = start;
+        while(head != tail) {
+            int curr = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            if(curr == goal) {
+                return true;
+            }
+            int x = curr % width;
+            int y = curr / width;
+            for(int d=0; d<4; d++) {
+                int nx = x + (d == 1 ? 1 : d == 3 ? -1 : 0);
+                int ny = y + (d == 2 ? 1 : d == 0 ? -1 : 0);
+                if(nx < 0 || ny < 0 || nx >= width || ny >= height || gridworld.isBlocked(nx, ny)) {
+                    continue;
+                }
+                int next = ny * width + nx;
+                if((visited[next >>> 6] & (1L << next)) == 0) {
+                    visited[next >>> 6] |= 1L << next;
+                    queue[tail] = next;
+                    tail = (tail + 1) & (queue.length - 1);
+                    if(tail == head) {
+                        queue = grow(queue, head);
+                        head = 0;
+                        tail = queue.length / 2;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Doubles a full ring buffer, moving its contents to the front.
+    static int[] grow(int[] queue, int head) {
+        int[] larger = new int[queue.length * 2];
+        System.arraycopy(queue, head, larger, 0, queue.length - head);
+        System.arraycopy(queue, 0, larger, queue.length - head, head);
+        return larger;
+    }
+
+    // Opens every space along the start's row to the goal's column, then along that column.
+    static void carve(Grid gridworld, int startX, int startY, int goalX, int goalY) {
+        for(int x=Math.min(startX, goalX); x<=Math.max(startX, goalX); x++) {
+            gridworld.setBlocked(x, startY, false);
+        }
+        for(int y=Math.min(startY, goalY); y<=Math.max(startY, goalY); y++) {
+            gridworld.setBlocked(goalX, y, false);
+        }
+    }
+
+    static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
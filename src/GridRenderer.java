@@ -0,0 +1,195 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Draws gridworlds as text or as images, one row at a time, without copying the
+ * gridworld. A path is overlaid from the sorted array of its cells: rows are drawn
+ * in cell order, so one cursor walks the array alongside them and memory only grows
+ * with the length of the path.
+ *
+ * Text goes to a Writer one row per write call; wrap slow streams in a
+ * BufferedWriter. Images are written as binary PBM (blocked spaces black) or, with a
+ * path, binary PGM (path grey), which most image viewers and tools read.
+ */
+public class GridRenderer {
+
+    // Rows end as println ends them, so text output matches Search.printGrid's.
+    static final String NEWLINE = System.lineSeparator();
+
+    /**
+     * Draws the whole gridworld as Search.printGrid does: open spaces as o, blocked as
+     * B, or, if a path is given, path spaces as X and blocked ones as b.
+     *
+     * @param path Any Node on the path chain to mark, or null.
+     */
+    public static void render(Grid gridworld, Node path, Writer out) throws IOException {
+        out.write("Coordinates:" + NEWLINE + "  ");
+        StringBuilder header = new StringBuilder();
+        for(int i=0; i<gridworld.width()-2 && i<10; i++) header.append(' ').append(i);
+        header.append(" ...").append(NEWLINE);
+        out.write(header.toString());
+        int[] cells = cells(gridworld, path);
+        char[] row = new char[3 + 2 * gridworld.width() + NEWLINE.length()];
+        NEWLINE.getChars(0, NEWLINE.length(), row, row.length - NEWLINE.length());
+        int cursor = 0;
+        for(int y=0; y<gridworld.height(); y++) {
+            if(y<gridworld.height()-3 && y<10) {
+                row[0] = ' ';
+                row[1] = (char) ('0' + y);
+            } else if(y < 13) {
+                row[0] = ' ';
+                row[1] = '.';
+            } else {
+                row[0] = ' ';
+                row[1] = ' ';
+            }
+            row[2] = ' ';
+            cursor = fill(gridworld, cells, cursor, path != null, 0, y, gridworld.width(), row, 3);
+            out.write(row);
+        }
+        out.flush();
+    }
+
+    /**
+     * Draws the part of the gridworld from (left, top) to (right, bottom), inclusive,
+     * marked up as render does. Spaces outside the gridworld are left out.
+     */
+    public static void render(Grid gridworld, Node path, int left, int top, int right,
+                              int bottom, Writer out) throws IOException {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, gridworld.width()-1);
+        bottom = Math.min(bottom, gridworld.height()-1);
+        out.write("Coordinates: (" + left + ", " + top + ") to (" + right + ", " + bottom + ")" + NEWLINE);
+        if(right < left || bottom < top) {
+            out.flush();
+            return;
+        }
+        int[] cells = cells(gridworld, path);
+        int width = right - left + 1;
+        char[] row = new char[3 + 2 * width + NEWLINE.length()];
+        row[0] = row[1] = row[2] = ' ';
+        NEWLINE.getChars(0, NEWLINE.length(), row, row.length - NEWLINE.length());
+        for(int y=top; y<=bottom; y++) {
+            // Skip straight to the first path cell of this row's window.
+            int cursor = Arrays.binarySearch(cells, y * gridworld.width() + left);
+            if(cursor < 0) {
+                cursor = -cursor - 1;
+            }
+            fill(gridworld, cells, cursor, path != null, left, y, width, row, 3);
+            out.write(row);
+        }
+        out.flush();
+    }
+
+    /**
+     * Draws the spaces within radius of (x, y), e.g. around the agent.
+     */
+    public static void renderAround(Grid gridworld, Node path, int x, int y, int radius,
+                                    Writer out) throws IOException {
+        render(gridworld, path, x - radius, y - radius, x + radius, y + radius, out);
+    }
+
+    /**
+     * Draws the smallest window holding the whole path, with margin spaces around it.
+     */
+    public static void renderPath(Grid gridworld, Node path, int margin, Writer out)
+            throws IOException {
+        int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+        for(Node n=path; n!=null; n=n.tree) {
+            left = Math.min(left, n.x);
+            top = Math.min(top, n.y);
+            right = Math.max(right, n.x);
+            bottom = Math.max(bottom, n.y);
+        }
+        render(gridworld, path, left - margin, top - margin, right + margin,
+                bottom + margin, out);
+    }
+
+    /**
+     * Writes the gridworld as a binary PBM image: one bit per space, black where blocked.
+     */
+    public static void writePbm(Grid gridworld, OutputStream out) throws IOException {
+        int width = gridworld.width();
+        out.write(("P4\n" + width + " " + gridworld.height() + "\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        byte[] row = new byte[(width + 7) >>> 3];
+        for(int y=0; y<gridworld.height(); y++) {
+            Arrays.fill(row, (byte) 0);
+            for(int x=0; x<width; x++) {
+                if(gridworld.isBlocked(x, y)) {
+                    row[x >>> 3] |= 0x80 >>> (x & 7);
+                }
+            }
+            out.write(row);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the gridworld as a binary PGM image: one byte per space, white where
+     * open, black where blocked and grey along the path.
+     */
+    public static void writePgm(Grid gridworld, Node path, OutputStream out) throws IOException {
+        int width = gridworld.width();
+        out.write(("P5\n" + width + " " + gridworld.height() + "\n255\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        int[] cells = cells(gridworld, path);
+        int cursor = 0;
+        byte[] row = new byte[width];
+        for(int y=0; y<gridworld.height(); y++) {
+            for(int x=0; x<width; x++) {
+                int cell = y * width + x;
+                while(cursor < cells.length && cells[cursor] < cell) {
+                    cursor++;
+                }
+                if(cursor < cells.length && cells[cursor] == cell) {
+                    row[x] = (byte) 128;
+                } else {
+                    row[x] = (byte) (gridworld.isBlocked(x, y) ? 0 : 255);
+                }
+            }
+            out.write(row);
+        }
+        out.flush();
+    }
+
+    // Fills count spaces of row y from left into the buffer. Returns the cursor past them.
+    static int fill(Grid gridworld, int[] cells, int cursor, boolean overlay, int left, int y,
+                    int count, char[] row, int at) {
+        int cell = y * gridworld.width() + left;
+        for(int x=left; x<left+count; x++, cell++, at+=2) {
+            while(cursor < cells.length && cells[cursor] < cell) {
+                cursor++;
+            }
+            if(cursor < cells.length && cells[cursor] == cell) {
+                row[at] = 'X';
+            } else if(gridworld.isBlocked(x, y)) {
+                row[at] = overlay ? 'b' : 'B';
+            } else {
+                row[at] = 'o';
+            }
+            row[at+1] = ' ';
+        }
+        return cursor;
+    }
+
+    // The cells on the path chain, sorted.
+    static int[] cells(Grid gridworld, Node path) {
+        int length = 0;
+        for(Node n=path; n!=null; n=n.tree) {
+            length++;
+        }
+        int[] cells = new int[length];
+        int i = 0;
+        for(Node n=path; n!=null; n=n.tree) {
+            cells[i++] = n.y * gridworld.width() + n.x;
+        }
+        Arrays.sort(cells);
+        return cells;
+    }
+}
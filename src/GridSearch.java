@@ -0,0 +1,321 @@
+/**
+ * An A* search engine that keeps all of its per-cell search state in flat primitive
+ * arrays indexed by cell (y * width + x): g values, parent cells and the id of the
+ * search that last touched each cell. No Nodes are allocated while searching; the
+ * path is only turned into a Node chain once the search is over and a caller asks
+ * for it.
+ *
+ * A GridSearch can be reused for any number of searches over gridworlds of the same
+ * size. State from earlier searches is ignored through the search stamps, so nothing
+ * needs to be cleared in between. The gridworld itself is only read, never written.
+ */
+public class GridSearch {
+
+    int width, height;
+    int[] g;
+    int[] parent;
+    int[] stamp;
+    int search;
+    int goalX, goalY;
+    Heuristic heuristic;
+    IndexedHeap openList;
+    ClosedSet closedList;
+    int[] expanded;
+    int expandedCount;
+    int[] learnedH;
+    int learnedGoal = -1;
+    int generated, decreaseKeys, openPeak;
+    long startNanos;
+    SearchListener listener;
+
+    /**
+     * @param width The width (x dimension) of the gridworlds to search.
+     * @param height The height (y dimension) of the gridworlds to search.
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     */
+    public GridSearch(int width, int height, boolean larger) {
+        this.width = width;
+        this.height = height;
+        g = new int[width * height];
+        parent = new int[width * height];
+        stamp = new int[width * height];
+        openList = new IndexedHeap(width * height, larger);
+        closedList = new ClosedSet(width, height);
+        expanded = new int[width * height];
+    }
+
+    /**
+     * Sets the listener told about every search this engine runs, or null for none.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Whether every path this engine finds is a shortest one. Engines that trade path
+     * length for speed, such as HierarchicalSearch, return false.
+     */
+    public boolean optimal() {
+        return true;
+    }
+
+    /**
+     * Switches the open list between a binary heap (the default) and a BucketQueue,
+     * which pushes and pops in O(1) but needs every f value to be a whole number: use
+     * it with the Manhattan or Chebyshev heuristic only. Both pop cells in the same
+     * order of f and then g; cells with equal f and g may come out in another order.
+     * A search with a heuristic that isn't integral throws an IllegalArgumentException
+     * before it starts.
+     */
+    public void setBucketQueue(boolean buckets) {
+        if(buckets != openList instanceof BucketQueue) {
+            openList = buckets ? new BucketQueue(width * height, openList.larger) :
+                    new IndexedHeap(width * height, openList.larger);
+        }
+    }
+
+    /**
+     * Turns Adaptive A* on or off. When on, every successful search raises the h value
+     * of each cell it expanded to g(goal) - g(cell), and later searches to the same goal
+     * use whichever is larger of that and the heuristic. Both stay admissible
+     * as long as blocked spaces are only ever added, so each search expands fewer cells
+     * than the last. Learned values are dropped when the goal changes.
+     */
+    public void setAdaptive(boolean adaptive) {
+        learnedH = adaptive ? new int[width * height] : null;
+        learnedGoal = -1;
+    }
+
+    /**
+     * Runs A* search from the start cell to the goal cell.
+     *
+     * @param gridworld The gridworld to search. Spaces set to -1 are blocked.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @return true if the goal was reached, false if it is unreachable.
+     */
+    public boolean search(int[][] gridworld, int startX, int startY, int goalX, int goalY,
+                          Search.Type heuristic) {
+        return search(new ArrayGrid(gridworld), startX, startY, goalX, goalY, heuristic);
+    }
+
+    /**
+     * Runs A* search from the start cell to the goal cell.
+     *
+     * @param gridworld The gridworld to search.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @return true if the goal was reached, false if it is unreachable.
+     */
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Search.Type heuristic) {
+        return search(gridworld, startX, startY, goalX, goalY,
+                Heuristic.of(heuristic, goalX, goalY));
+    }
+
+    /**
+     * Runs A* search from the start cell to the goal cell.
+     *
+     * @param gridworld The gridworld to search.
+     * @param heuristic The heuristic toward (goalX, goalY), e.g. a HeuristicField or
+     *                  a LandmarkHeuristic's.
+     * @return true if the goal was reached, false if it is unreachable.
+     */
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Heuristic heuristic) {
+        if(endBlocked(gridworld, startX, startY, goalX, goalY, heuristic)) {
+            return false; // Failure.
+        }
+        int goal = begin(startX, startY, goalX, goalY, heuristic);
+        while(!openList.isEmpty()) {
+            int curr = openList.pop();
+            if(curr == goal) return end(true, goal); // Success.
+            expand(gridworld, curr);
+        }
+        return end(false, goal); // Failure.
+    }
+
+    /**
+     * Returns the g value the last search found for the given space, or
+     * Integer.MAX_VALUE if the last search never reached it.
+     */
+    public int g(int x, int y) {
+        return gAt(y * width + x);
+    }
+
+    int gAt(int cell) {
+        return stamp[cell] == search ? g[cell] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Builds the Node chain for the path the last search found to the given space.
+     *
+     * @return The Node at (x, y) with the path tree leading back to the start, in the
+     * same form Search.aStarSearch returns, or null if the space was not reached.
+     */
+    public Node path(int x, int y) {
+        int cell = y * width + x;
+        if(stamp[cell] != search) {
+            return null;
+        }
+        // Walk back to the start first, so Nodes can be linked start to end.
+        int length = g[cell] + 1;
+        int[] cells = new int[length];
+        for(int i=length-1; i>=0; i--) {
+            cells[i] = cell;
+            cell = parent[cell];
+        }
+        Node node = null;
+        for(int i=0; i<length; i++) {
+            int cx = cells[i] % width;
+            int cy = cells[i] / width;
+            node = new Node(cx, cy, i, heuristic.h(cells[i], cx, cy), node);
+        }
+        return node;
+    }
+
+    // Closes a cell taken off the open list and relaxes its open neighbors.
+    void expand(Grid gridworld, int curr) {
+        closedList.add(curr);
+        expanded[expandedCount++] = curr;
+
+        int x = curr % width;
+        int y = curr / width;
+        int childG = g[curr] + 1;
+        // Check if the agent can move up, right, down, or left and wont be out of bounds
+        // or blocked.
+        if(y-1 >= 0 && !gridworld.isBlocked(x, y-1)) {
+            relax(curr, curr - width, x, y-1, childG);
+        }
+        if(x+1 < width && !gridworld.isBlocked(x+1, y)) {
+            relax(curr, curr + 1, x+1, y, childG);
+        }
+        if(y+1 < height && !gridworld.isBlocked(x, y+1)) {
+            relax(curr, curr + width, x, y+1, childG);
+        }
+        if(x-1 >= 0 && !gridworld.isBlocked(x-1, y)) {
+            relax(curr, curr - 1, x-1, y, childG);
+        }
+    }
+
+    // The smallest f value on the open list, or infinity if it is empty.
+    double topF() {
+        return openList.isEmpty() ? Double.POSITIVE_INFINITY : openList.f[openList.top()];
+    }
+
+    // Updates a neighbor of the expanded cell if the path through the expanded cell is cheaper.
+    void relax(int curr, int child, int x, int y, int childG) {
+        if(closedList.contains(child)) {
+            return;
+        }
+        if(stamp[child] != search) {
+            stamp[child] = search;
+            g[child] = childG;
+            parent[child] = curr;
+            openList.push(child, childG + h(child, x, y), childG);
+            generated++;
+            if(openList.size() > openPeak) openPeak = openList.size();
+        } else if(g[child] > childG) {
+            g[child] = childG;
+            parent[child] = curr;
+            openList.decreaseKey(child, childG + h(child, x, y), childG);
+            decreaseKeys++;
+        }
+    }
+
+    // Checks the heuristic, start and goal before a search. If either end is blocked
+    // the search fails at once, with nothing reached, and is reported to the listener;
+    // every engine does this, so no engine or Grid finds a path out of or into a
+    // blocked space.
+    boolean endBlocked(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                       Heuristic heuristic) {
+        checkKeys(heuristic);
+        if(!gridworld.isBlocked(startX, startY) && !gridworld.isBlocked(goalX, goalY)) {
+            return false;
+        }
+        startNanos = listener != null ? System.nanoTime() : 0;
+        nextSearch();
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.heuristic = heuristic;
+        generated = decreaseKeys = openPeak = 0;
+        end(false, goalY * width + goalX);
+        return true;
+    }
+
+    // Throws if the open list is a BucketQueue and the heuristic would give it keys
+    // that aren't whole numbers, rather than failing partway through a search.
+    void checkKeys(Heuristic heuristic) {
+        if(openList instanceof BucketQueue && !wholeKeys(heuristic)) {
+            throw new IllegalArgumentException("A BucketQueue open list needs a heuristic " +
+                    "with whole-number values, such as Manhattan or Chebyshev, not " +
+                    heuristic.getClass().getSimpleName() + ".");
+        }
+    }
+
+    // Whether every f value pushed with the heuristic is a whole number.
+    boolean wholeKeys(Heuristic heuristic) {
+        return heuristic.integral();
+    }
+
+    // Starts a new search and puts the start cell on the open list. Returns the goal cell.
+    int begin(int startX, int startY, int goalX, int goalY, Heuristic heuristic) {
+        nextSearch();
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.heuristic = heuristic;
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        if(learnedH != null && learnedGoal != goal) {
+            java.util.Arrays.fill(learnedH, 0);
+            learnedGoal = goal;
+        }
+
+        generated = 1;
+        decreaseKeys = 0;
+        openPeak = 1;
+        startNanos = listener != null ? System.nanoTime() : 0;
+        stamp[start] = search;
+        g[start] = 0;
+        parent[start] = -1;
+        openList.push(start, h(start, startX, startY), 0);
+        return goal;
+    }
+
+    // Finishes a search: learns h values if adaptive and reports to the listener.
+    boolean end(boolean found, int goal) {
+        if(found && learnedH != null) {
+            learn(goal);
+        }
+        if(listener != null) {
+            listener.searchFinished(found, expandedCount, generated, openPeak, decreaseKeys,
+                    System.nanoTime() - startNanos);
+        }
+        return found;
+    }
+
+    // The heuristic value of a cell: the heuristic's, or the learned one if that is larger.
+    double h(int cell, int x, int y) {
+        double h = heuristic.h(cell, x, y);
+        return learnedH != null && learnedH[cell] > h ? learnedH[cell] : h;
+    }
+
+    // Adaptive A*: h(s) = g(goal) - g(s) for every cell expanded by the last search.
+    void learn(int goal) {
+        int goalG = g[goal];
+        for(int i=0; i<expandedCount; i++) {
+            learnedH[expanded[i]] = goalG - g[expanded[i]];
+        }
+    }
+
+    // Starts a new search id, so every cell's g value and parent from earlier searches is stale.
+    void nextSearch() {
+        openList.clear();
+        closedList.clear();
+        expandedCount = 0;
+        search++;
+        if(search == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+}
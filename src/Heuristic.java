@@ -0,0 +1,110 @@
+/**
+ * An estimate of the distance from a space to one fixed goal, used by the search
+ * engines to order their open lists. Each implementation is a small final class, so
+ * a search that only ever uses one of them gets the call inlined.
+ *
+ * The search engines pass both the cell index (y * width + x) and the coordinates of
+ * the space, so table-based heuristics can index by cell while formula-based ones use
+ * the coordinates.
+ */
+public interface Heuristic {
+
+    double h(int cell, int x, int y);
+
+    /**
+     * Whether the value of every open space is a whole number, as a BucketQueue open
+     * list needs. False unless an implementation knows better.
+     */
+    default boolean integral() {
+        return false;
+    }
+
+    /**
+     * Returns the same kind of heuristic toward another space, e.g. toward the start
+     * for a search running back from the goal, or null if this one can't be moved,
+     * as a HeuristicField can't.
+     */
+    default Heuristic toward(int goalX, int goalY) {
+        return null;
+    }
+
+    /**
+     * Returns the formula heuristic of the given type toward (goalX, goalY).
+     */
+    static Heuristic of(Search.Type type, int goalX, int goalY) {
+        switch(type) {
+            case EUCLIDIAN:
+                return new Euclidian(goalX, goalY);
+            case MANHATTAN:
+                return new Manhattan(goalX, goalY);
+            default:
+                return new Chebyshev(goalX, goalY);
+        }
+    }
+
+    final class Manhattan implements Heuristic {
+        final int goalX, goalY;
+
+        public Manhattan(int goalX, int goalY) {
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+
+        @Override
+        public Heuristic toward(int goalX, int goalY) {
+            return new Manhattan(goalX, goalY);
+        }
+
+        @Override
+        public boolean integral() {
+            return true;
+        }
+
+        public double h(int cell, int x, int y) {
+            return Math.abs(x - goalX) + Math.abs(y - goalY);
+        }
+    }
+
+    final class Euclidian implements Heuristic {
+        final int goalX, goalY;
+
+        public Euclidian(int goalX, int goalY) {
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+
+        @Override
+        public Heuristic toward(int goalX, int goalY) {
+            return new Euclidian(goalX, goalY);
+        }
+
+        public double h(int cell, int x, int y) {
+            double dx = x - goalX;
+            double dy = y - goalY;
+            return Math.sqrt(dx*dx + dy*dy);
+        }
+    }
+
+    final class Chebyshev implements Heuristic {
+        final int goalX, goalY;
+
+        public Chebyshev(int goalX, int goalY) {
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+
+        @Override
+        public Heuristic toward(int goalX, int goalY) {
+            return new Chebyshev(goalX, goalY);
+        }
+
+        @Override
+        public boolean integral() {
+            return true;
+        }
+
+        public double h(int cell, int x, int y) {
+            return Math.max(Math.abs(x - goalX), Math.abs(y - goalY));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * Hierarchical path-finding A* (HPA*). A search first runs A* over the Grid's
+ * ClusterGraph, from the start through the entrances between clusters to the goal,
+ * and then refines each step of that abstract path into spaces with a low-level A*
+ * search between its two ends. Long-distance queries expand a few hundred graph nodes
+ * and short local searches instead of most of the gridworld.
+ *
+ * The paths found are near-optimal rather than optimal: they pass through the
+ * entrances the graph picked. The abstract search uses this engine's own arrays, one
+ * entry per cell, and the refinement a second GridSearch.
+ */
+public class HierarchicalSearch extends GridSearch {
+
+    static final int INFINITY = Integer.MAX_VALUE;
+    // The cluster size used when none is given.
+    static final int DEFAULT_SIZE = 16;
+
+    int clusterSize;
+    ClusterGraph graph;
+    GridSearch refiner;
+    int[] fromStart, toGoal, queue;
+    int goalCell;
+    int[] pathCells;
+    int pathLength;
+    int refinedExpanded, refinedGenerated, refinedDecreaseKeys, refinedPeak;
+
+    /**
+     * @param width The width (x dimension) of the gridworlds to search.
+     * @param height The height (y dimension) of the gridworlds to search.
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     * @param clusterSize The width and height of each cluster.
+     */
+    public HierarchicalSearch(int width, int height, boolean larger, int clusterSize) {
+        super(width, height, larger);
+        this.clusterSize = clusterSize;
+        refiner = new GridSearch(width, height, larger);
+        fromStart = new int[clusterSize * clusterSize];
+        toGoal = new int[clusterSize * clusterSize];
+        queue = new int[clusterSize * clusterSize];
+        pathCells = new int[16];
+    }
+
+    @Override
+    public boolean optimal() {
+        return false;
+    }
+
+    @Override
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Heuristic heuristic) {
+        if(endBlocked(gridworld, startX, startY, goalX, goalY, heuristic)) {
+            goalCell = goalY * width + goalX;
+            pathLength = 0;
+            return false; // Failure.
+        }
+        long startNanos = listener != null ? System.nanoTime() : 0;
+        graph = ClusterGraph.of(gridworld, clusterSize);
+        int start = startY * width + startX;
+        goalCell = begin(startX, startY, goalX, goalY, heuristic);
+        pathLength = 0;
+        graph.distances(gridworld, start, fromStart, queue);
+        graph.distances(gridworld, goalCell, toGoal, queue);
+        int startCluster = graph.cluster(startX, startY);
+        int goalCluster = graph.cluster(goalX, goalY);
+
+        boolean found = false;
+        while(!openList.isEmpty()) {
+            int curr = openList.pop();
+            if(curr == goalCell) {
+                found = true;
+                break;
+            }
+            closedList.add(curr);
+            expanded[expandedCount++] = curr;
+            int x = curr % width;
+            int y = curr / width;
+            int cluster = graph.cluster(x, y);
+            if(curr == start) {
+                // The start joins the graph through the nodes of its own cluster.
+                int[] nodes = graph.nodes[cluster];
+                for(int node : nodes) {
+                    link(curr, node, fromStart[graph.local(node)]);
+                }
+                if(cluster == goalCluster) {
+                    link(curr, goalCell, fromStart[graph.local(goalCell)]);
+                }
+            }
+            int slot = graph.slot[curr];
+            if(slot >= 0) {
+                int[] nodes = graph.nodes[cluster];
+                int[] distance = graph.distance[cluster];
+                int n = nodes.length;
+                for(int j=0; j<n; j++) {
+                    link(curr, nodes[j], distance[slot * n + j]);
+                }
+                // Edges across the borders of the cluster.
+                if(y-1 >= 0 && y % clusterSize == 0) link(curr, curr - width, graph.slot[curr - width] >= 0 ? 1 : INFINITY);
+                if(x+1 < width && (x+1) % clusterSize == 0) link(curr, curr + 1, graph.slot[curr + 1] >= 0 ? 1 : INFINITY);
+                if(y+1 < height && (y+1) % clusterSize == 0) link(curr, curr + width, graph.slot[curr + width] >= 0 ? 1 : INFINITY);
+                if(x-1 >= 0 && x % clusterSize == 0) link(curr, curr - 1, graph.slot[curr - 1] >= 0 ? 1 : INFINITY);
+                if(cluster == goalCluster) {
+                    link(curr, goalCell, toGoal[graph.local(curr)]);
+                }
+            }
+        }
+        refinedExpanded = refinedGenerated = refinedDecreaseKeys = refinedPeak = 0;
+        if(found) {
+            // Refine the abstract path one edge at a time, from the start to the goal.
+            int edges = 0;
+            for(int cell=goalCell; parent[cell] >= 0; cell=parent[cell]) {
+                edges++;
+            }
+            int[] abstractPath = new int[edges + 1];
+            int i = edges;
+            for(int cell=goalCell; cell >= 0; cell=parent[cell]) {
+                abstractPath[i--] = cell;
+            }
+            add(abstractPath[0]);
+            for(i=1; i<abstractPath.length && found; i++) {
+                found = refine(gridworld, abstractPath[i-1], abstractPath[i]);
+            }
+            if(!found) {
+                // An edge the graph promised could not be walked, so the graph is out of
+                // date with the gridworld. Rebuild it for the next search and answer
+                // this one with a plain A* search over the whole gridworld.
+                ClusterGraph.invalidate(gridworld);
+                pathLength = 0;
+                add(start);
+                found = refine(gridworld, start, goalCell);
+                if(!found) {
+                    pathLength = 0;
+                }
+            }
+        }
+        if(listener != null) {
+            listener.searchFinished(found, expandedCount + refinedExpanded,
+                    generated + refinedGenerated, Math.max(openPeak, refinedPeak),
+                    decreaseKeys + refinedDecreaseKeys, System.nanoTime() - startNanos);
+        }
+        return found;
+    }
+
+    // Appends the spaces of a shortest path from one cell to the next, the first left
+    // out. Returns false if there is no such path.
+    boolean refine(Grid gridworld, int from, int to) {
+        int tx = to % width;
+        int ty = to / width;
+        boolean found = refiner.search(gridworld, from % width, from / width, tx, ty,
+                new Heuristic.Manhattan(tx, ty));
+        refinedExpanded += refiner.expandedCount;
+        refinedGenerated += refiner.generated;
+        refinedDecreaseKeys += refiner.decreaseKeys;
+        refinedPeak = Math.max(refinedPeak, refiner.openPeak);
+        if(!found) {
+            return false;
+        }
+        int segment = refiner.g[to];
+        ensure(pathLength + segment);
+        int j = pathLength + segment - 1;
+        for(int cell=to; cell != from; cell=refiner.parent[cell]) {
+            pathCells[j--] = cell;
+        }
+        pathLength += segment;
+        return true;
+    }
+
+    // Relaxes a graph edge of the given length from the expanded cell, if there is one.
+    void link(int curr, int child, int length) {
+        if(length != INFINITY && child != curr) {
+            relax(curr, child, child % width, child / width, g[curr] + length);
+        }
+    }
+
+    void add(int cell) {
+        ensure(pathLength + 1);
+        pathCells[pathLength++] = cell;
+    }
+
+    void ensure(int capacity) {
+        if(capacity > pathCells.length) {
+            pathCells = java.util.Arrays.copyOf(pathCells,
+                    Math.max(capacity, pathCells.length * 2));
+        }
+    }
+
+    /**
+     * Tells the engine that the space (x, y) of the gridworld it searches has changed,
+     * so only the clusters around it are rebuilt before the next search.
+     */
+    public void changed(Grid gridworld, int x, int y) {
+        ClusterGraph graph = ClusterGraph.cached(gridworld, clusterSize);
+        if(graph != null) {
+            graph.update(gridworld, x, y);
+        }
+    }
+
+    /**
+     * Returns the length of the path found to the goal, or Integer.MAX_VALUE for any
+     * other space.
+     */
+    @Override
+    public int g(int x, int y) {
+        return y * width + x == goalCell && pathLength > 0 ? pathLength - 1 : INFINITY;
+    }
+
+    /**
+     * Builds the Node chain for the path the last search found to the goal, or null
+     * for any other space.
+     */
+    @Override
+    public Node path(int x, int y) {
+        if(y * width + x != goalCell || pathLength == 0) {
+            return null;
+        }
+        Node node = null;
+        for(int i=0; i<pathLength; i++) {
+            int cx = pathCells[i] % width;
+            int cy = pathCells[i] / width;
+            node = new Node(cx, cy, i, heuristic.h(pathCells[i], cx, cy), node);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the cell after (x, y) on the last path found, or -1 if (x, y) is not on
+     * it or is its last space.
+     */
+    public int nextOnPath(int x, int y) {
+        int cell = y * width + x;
+        for(int i=0; i<pathLength-1; i++) {
+            if(pathCells[i] == cell) {
+                return pathCells[i+1];
+            }
+        }
+        return -1;
+    }
+}
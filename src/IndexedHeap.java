@@ -0,0 +1,176 @@
+/**
+ * A min binary heap of gridworld cells keyed by their cell index (y * width + x).
+ * The heap's position of every cell is kept in a flat array, so membership checks
+ * are O(1) and decrease-key is O(log n) instead of a scan of the whole open list.
+ *
+ * Cells are ordered by their f value. Ties are broken by g value the same way
+ * NodeComparator does: favoring larger g values if larger is set, smaller if not.
+ */
+public class IndexedHeap {
+
+    int[] heap;
+    int[] pos;
+    double[] f;
+    int[] g;
+    int size;
+    boolean larger;
+
+    /**
+     * @param cells The number of cells in the gridworld (width * height).
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     */
+    public IndexedHeap(int cells, boolean larger) {
+        heap = new int[cells];
+        pos = new int[cells];
+        f = new double[cells];
+        g = new int[cells];
+        java.util.Arrays.fill(pos, -1);
+        this.larger = larger;
+    }
+
+    /**
+     * Adds a cell that is not yet in the heap.
+     */
+    public void push(int cell, double f, int g) {
+        this.f[cell] = f;
+        this.g[cell] = g;
+        heap[size] = cell;
+        pos[cell] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of a cell already in the heap and restores the heap order.
+     */
+    public void decreaseKey(int cell, double f, int g) {
+        this.f[cell] = f;
+        this.g[cell] = g;
+        siftUp(pos[cell]);
+    }
+
+    /**
+     * Changes the key of a cell already in the heap, in either direction, and
+     * restores the heap order.
+     */
+    public void update(int cell, double f, int g) {
+        this.f[cell] = f;
+        this.g[cell] = g;
+        siftUp(pos[cell]);
+        siftDown(pos[cell]);
+    }
+
+    /**
+     * Removes a cell from the heap if it is in it.
+     */
+    public void remove(int cell) {
+        int i = pos[cell];
+        if(i < 0) {
+            return;
+        }
+        pos[cell] = -1;
+        size--;
+        if(i < size) {
+            int moved = heap[size];
+            heap[i] = moved;
+            pos[moved] = i;
+            siftUp(i);
+            siftDown(pos[moved]);
+        }
+    }
+
+    /**
+     * Removes and returns the cell with the smallest key, or -1 if the heap is empty.
+     */
+    public int pop() {
+        if(size == 0) {
+            return -1;
+        }
+        int top = heap[0];
+        pos[top] = -1;
+        size--;
+        if(size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Returns the cell with the smallest key without removing it, or -1 if the heap is empty.
+     */
+    public int top() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    public boolean contains(int cell) {
+        return pos[cell] >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the heap. Only the cells currently in the heap are touched.
+     */
+    public void clear() {
+        for(int i=0; i<size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    // Copies the cells in the heap, in no particular order, into out. Returns how many.
+    int copyTo(int[] out) {
+        System.arraycopy(heap, 0, out, 0, size);
+        return size;
+    }
+
+    // Returns true if cell a should be closer to the top of the heap than cell b.
+    boolean less(int a, int b) {
+        if(f[a] != f[b]) {
+            return f[a] < f[b];
+        }
+        return larger ? g[a] > g[b] : g[a] < g[b];
+    }
+
+    void siftUp(int i) {
+        int cell = heap[i];
+        while(i > 0) {
+            int parent = (i-1) >> 1;
+            if(!less(cell, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = cell;
+        pos[cell] = i;
+    }
+
+    void siftDown(int i) {
+        int cell = heap[i];
+        int half = size >> 1;
+        while(i < half) {
+            int child = 2*i + 1;
+            if(child+1 < size && less(heap[child+1], heap[child])) {
+                child++;
+            }
+            if(!less(heap[child], cell)) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = cell;
+        pos[cell] = i;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Jump Point Search for 4-connected gridworlds where every move costs 1. Instead of
+ * putting every open neighbor on the open list, the search jumps in a straight line
+ * until it reaches a jump point: the goal, a space with a forced neighbor (one that
+ * can only be reached optimally through it), or, when moving vertically, a space
+ * from which a horizontal jump finds a jump point. Only jump points are put on the
+ * open list, and the paths found are exactly as long as those A* finds.
+ *
+ * With precomputed set, the jumps are read from the Grid's JumpTable (JPS+) instead
+ * of being scanned cell by cell.
+ */
+public class JumpPointSearch extends GridSearch {
+
+    boolean precomputed;
+    Grid gridworld;
+    JumpTable table;
+    int goal;
+
+    /**
+     * @param width The width (x dimension) of the gridworlds to search.
+     * @param height The height (y dimension) of the gridworlds to search.
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     * @param precomputed Whether to use precomputed jump distances (JPS+).
+     */
+    public JumpPointSearch(int width, int height, boolean larger, boolean precomputed) {
+        super(width, height, larger);
+        this.precomputed = precomputed;
+    }
+
+    @Override
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Heuristic heuristic) {
+        if(endBlocked(gridworld, startX, startY, goalX, goalY, heuristic)) {
+            return false; // Failure.
+        }
+        this.gridworld = gridworld;
+        table = precomputed ? JumpTable.of(gridworld) : null;
+        goal = begin(startX, startY, goalX, goalY, heuristic);
+
+        while(!openList.isEmpty()) {
+            int curr = openList.pop();
+            if(curr == goal) return end(true, goal); // Success.
+            closedList.add(curr);
+            expanded[expandedCount++] = curr;
+
+            int x = curr % width;
+            int y = curr / width;
+            int dx = 0, dy = 0;
+            if(parent[curr] >= 0) {
+                dx = Integer.signum(x - parent[curr] % width);
+                dy = Integer.signum(y - parent[curr] / width);
+            }
+            // Prune the neighbors: moving horizontally, only the vertical neighbors and
+            // the space ahead need to be jumped to, and the same goes for vertical moves.
+            if(dx != 0) {
+                jumpFrom(curr, x, y, 0, -1);
+                jumpFrom(curr, x, y, 0, 1);
+                jumpFrom(curr, x, y, dx, 0);
+            } else if(dy != 0) {
+                jumpFrom(curr, x, y, -1, 0);
+                jumpFrom(curr, x, y, 1, 0);
+                jumpFrom(curr, x, y, 0, dy);
+            } else {
+                jumpFrom(curr, x, y, 0, -1);
+                jumpFrom(curr, x, y, 1, 0);
+                jumpFrom(curr, x, y, 0, 1);
+                jumpFrom(curr, x, y, -1, 0);
+            }
+        }
+        return end(false, goal); // Failure.
+    }
+
+    /**
+     * Builds the Node chain for the path the last search found to the given space,
+     * filling in every space between consecutive jump points.
+     */
+    @Override
+    public Node path(int x, int y) {
+        int cell = y * width + x;
+        if(stamp[cell] != search) {
+            return null;
+        }
+        int length = g[cell] + 1;
+        int[] cells = new int[length];
+        int i = length-1;
+        cells[i] = cell;
+        while(parent[cell] >= 0) {
+            int step = stepToward(cell, parent[cell]);
+            int c = cell;
+            while(c != parent[cell]) {
+                c += step;
+                cells[--i] = c;
+            }
+            cell = parent[cell];
+        }
+        Node node = null;
+        for(i=0; i<length; i++) {
+            int cx = cells[i] % width;
+            int cy = cells[i] / width;
+            node = new Node(cx, cy, i, heuristic.h(cells[i], cx, cy), node);
+        }
+        return node;
+    }
+
+    // Jumps from the expanded cell in one direction and relaxes the jump point found, if any.
+    void jumpFrom(int curr, int x, int y, int dx, int dy) {
+        int jumpPoint = precomputed ? jumpTable(x, y, dx, dy) :
+                (dy == 0 ? jumpHorizontal(x+dx, y, dx) : jumpVertical(x, y+dy, dy));
+        if(jumpPoint >= 0) {
+            int distance = Math.abs(jumpPoint % width - x) + Math.abs(jumpPoint / width - y);
+            relax(curr, jumpPoint, jumpPoint % width, jumpPoint / width, g[curr] + distance);
+        }
+    }
+
+    // Scans from (x, y) along the row. Returns the jump point's cell, or -1 if there is none.
+    int jumpHorizontal(int x, int y, int dx) {
+        while(free(x, y)) {
+            int cell = y * width + x;
+            if(cell == goal || forcedHorizontal(gridworld, x, y, dx)) {
+                return cell;
+            }
+            x += dx;
+        }
+        return -1;
+    }
+
+    // Scans from (x, y) along the column. Returns the jump point's cell, or -1 if there is none.
+    int jumpVertical(int x, int y, int dy) {
+        while(free(x, y)) {
+            int cell = y * width + x;
+            if(cell == goal || forcedVertical(gridworld, x, y, dy) ||
+                    jumpHorizontal(x+1, y, 1) >= 0 || jumpHorizontal(x-1, y, -1) >= 0) {
+                return cell;
+            }
+            y += dy;
+        }
+        return -1;
+    }
+
+    // JPS+: reads the jump from the JumpTable, stopping early at the goal's row or column.
+    int jumpTable(int x, int y, int dx, int dy) {
+        int cell = y * width + x;
+        int direction = dx > 0 ? JumpTable.RIGHT : dx < 0 ? JumpTable.LEFT :
+                dy > 0 ? JumpTable.DOWN : JumpTable.UP;
+        int d = table.distance(direction, cell);
+        int reach = d > 0 ? d : -d;
+        if(dy == 0) {
+            int toGoal = (goalX - x) * dx;
+            if(goalY == y && toGoal > 0 && toGoal <= reach) {
+                return goal;
+            }
+        } else {
+            // A vertical jump stops on the goal's row, where a horizontal jump may reach it.
+            int toGoal = (goalY - y) * dy;
+            if(toGoal > 0 && toGoal <= reach) {
+                return goalY * width + x;
+            }
+        }
+        return d > 0 ? (y + d * dy) * width + x + d * dx : -1;
+    }
+
+    boolean free(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && !gridworld.isBlocked(x, y);
+    }
+
+    // The step between adjacent cells along the straight line from one cell toward another.
+    int stepToward(int from, int to) {
+        if(from / width == to / width) {
+            return to > from ? 1 : -1;
+        }
+        return to > from ? width : -width;
+    }
+
+    /**
+     * Whether the open space (x, y), reached moving horizontally by dx, has a forced
+     * neighbor: an open space above or below it whose own neighbor behind it is blocked.
+     */
+    static boolean forcedHorizontal(Grid grid, int x, int y, int dx) {
+        return (JumpTable.free(grid, x, y-1) && !JumpTable.free(grid, x-dx, y-1)) ||
+                (JumpTable.free(grid, x, y+1) && !JumpTable.free(grid, x-dx, y+1));
+    }
+
+    /**
+     * Whether the open space (x, y), reached moving vertically by dy, has a forced
+     * neighbor: an open space left or right of it whose own neighbor behind it is blocked.
+     */
+    static boolean forcedVertical(Grid grid, int x, int y, int dy) {
+        return (JumpTable.free(grid, x-1, y) && !JumpTable.free(grid, x-1, y-dy)) ||
+                (JumpTable.free(grid, x+1, y) && !JumpTable.free(grid, x+1, y-dy));
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Precomputed jump distances for Jump Point Search on a 4-connected Grid (JPS+).
+ * For every open cell and each of the four directions the table stores how far
+ * JumpPointSearch would travel from that cell before stopping:
+ *
+ *   d > 0: there is a jump point d spaces away.
+ *   d <= 0: there is no jump point, and -d open spaces lie before a blocked space
+ *           or the edge of the gridworld.
+ *
+ * The goal is not part of the table; JumpPointSearch checks for it when it reads
+ * the table. Tables are cached per Grid, never changed once built, and replaced by a
+ * new one once the Grid's version has moved on; Grids without a version get a new
+ * table every time.
+ */
+public class JumpTable {
+
+    static final int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3;
+
+    private static final Map<Grid, JumpTable> cache = new WeakHashMap<Grid, JumpTable>();
+
+    int width, height;
+    int[] distance;
+    long version;
+
+    JumpTable(Grid grid) {
+        width = grid.width();
+        height = grid.height();
+        version = grid.version();
+        distance = new int[4 * width * height];
+        build(grid);
+    }
+
+    /**
+     * Returns the jump table for the given Grid, building a new one if none is cached
+     * or the Grid has changed since it was built.
+     */
+    public static synchronized JumpTable of(Grid grid) {
+        JumpTable table = cache.get(grid);
+        if(table == null || table.version != grid.version() || table.version < 0) {
+            table = new JumpTable(grid);
+            cache.put(grid, table);
+        }
+        return table;
+    }
+
+    /**
+     * Drops the cached table of a Grid.
+     */
+    public static synchronized void invalidate(Grid grid) {
+        cache.remove(grid);
+    }
+
+    /**
+     * @param direction UP, RIGHT, DOWN or LEFT.
+     */
+    public int distance(int direction, int cell) {
+        return distance[direction * width * height + cell];
+    }
+
+    void build(Grid grid) {
+        int cells = width * height;
+        // Horizontal jump points only depend on the spaces around them, so rows come first.
+        for(int y=0; y<height; y++) {
+            for(int x=width-1; x>=0; x--) {
+                distance[RIGHT * cells + y * width + x] = x+1 < width && free(grid, x+1, y) ?
+                        next(JumpPointSearch.forcedHorizontal(grid, x+1, y, 1),
+                                distance[RIGHT * cells + y * width + x+1]) : 0;
+            }
+            for(int x=0; x<width; x++) {
+                distance[LEFT * cells + y * width + x] = x-1 >= 0 && free(grid, x-1, y) ?
+                        next(JumpPointSearch.forcedHorizontal(grid, x-1, y, -1),
+                                distance[LEFT * cells + y * width + x-1]) : 0;
+            }
+        }
+        // A vertical jump also stops wherever a horizontal jump would find a jump point.
+        for(int x=0; x<width; x++) {
+            for(int y=height-1; y>=0; y--) {
+                distance[DOWN * cells + y * width + x] = y+1 < height && free(grid, x, y+1) ?
+                        next(verticalJumpPoint(grid, x, y+1, 1),
+                                distance[DOWN * cells + (y+1) * width + x]) : 0;
+            }
+            for(int y=0; y<height; y++) {
+                distance[UP * cells + y * width + x] = y-1 >= 0 && free(grid, x, y-1) ?
+                        next(verticalJumpPoint(grid, x, y-1, -1),
+                                distance[UP * cells + (y-1) * width + x]) : 0;
+            }
+        }
+    }
+
+    boolean verticalJumpPoint(Grid grid, int x, int y, int dy) {
+        int cell = y * width + x;
+        int cells = width * height;
+        return JumpPointSearch.forcedVertical(grid, x, y, dy) ||
+                distance[RIGHT * cells + cell] > 0 || distance[LEFT * cells + cell] > 0;
+    }
+
+    // The distance from a cell given whether its neighbor is a jump point and the neighbor's own distance.
+    static int next(boolean jumpPoint, int neighbor) {
+        if(jumpPoint) {
+            return 1;
+        }
+        return neighbor > 0 ? neighbor + 1 : neighbor - 1;
+    }
+
+    static boolean free(Grid grid, int x, int y) {
+        return x >= 0 && y >= 0 && x < grid.width() && y < grid.height() && !grid.isBlocked(x, y);
+    }
+}
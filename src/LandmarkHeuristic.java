@@ -0,0 +1,100 @@
+/**
+ * The ALT (A*, landmarks, triangle inequality) heuristic. True distances from a few
+ * landmark spaces to every space are computed once per gridworld. By the triangle
+ * inequality, |d(L, goal) - d(L, s)| never overestimates the distance from s to the
+ * goal, and on gridworlds with many blocked spaces it is usually far closer to it
+ * than Manhattan distance, so searches expand much less.
+ *
+ * Landmarks are picked by farthest-point selection: each new landmark is the space
+ * farthest from the ones already picked, which spreads them around the edges.
+ *
+ * The distance tables must be rebuilt if the gridworld changes.
+ */
+public class LandmarkHeuristic {
+
+    int width, height;
+    int[] landmarks;
+    int[][] distances;
+
+    /**
+     * @param gridworld The gridworld to build distance tables for.
+     * @param count The number of landmarks. Each one costs an int per space.
+     * @param firstX The x coordinate of the space to pick the first landmark from.
+     * @param firstY The y coordinate of the space to pick the first landmark from.
+     */
+    public LandmarkHeuristic(Grid gridworld, int count, int firstX, int firstY) {
+        width = gridworld.width();
+        height = gridworld.height();
+        landmarks = new int[count];
+        distances = new int[count][];
+        // Distance to the closest landmark picked so far, for farthest-point selection.
+        int[] closest = HeuristicField.distances(gridworld, firstX, firstY);
+        for(int i=0; i<count; i++) {
+            int farthest = -1;
+            for(int cell=0; cell<closest.length; cell++) {
+                if(closest[cell] != Integer.MAX_VALUE &&
+                        (farthest < 0 || closest[cell] > closest[farthest])) {
+                    farthest = cell;
+                }
+            }
+            if(farthest < 0) { // Nothing reachable from the first space.
+                farthest = firstY * width + firstX;
+            }
+            landmarks[i] = farthest;
+            distances[i] = HeuristicField.distances(gridworld, farthest % width, farthest / width);
+            for(int cell=0; cell<closest.length; cell++) {
+                closest[cell] = Math.min(closest[cell], distances[i][cell]);
+            }
+        }
+    }
+
+    /**
+     * Returns the ALT heuristic toward (goalX, goalY), never less than Manhattan distance.
+     */
+    public Heuristic toward(int goalX, int goalY) {
+        int goal = goalY * width + goalX;
+        int[] goalDistances = new int[landmarks.length];
+        for(int i=0; i<landmarks.length; i++) {
+            goalDistances[i] = distances[i][goal];
+        }
+        return new Toward(this, goalX, goalY, goalDistances);
+    }
+
+    static final class Toward implements Heuristic {
+        final LandmarkHeuristic landmarks;
+        final int[][] distances;
+        final int[] goalDistances;
+        final int goalX, goalY;
+
+        Toward(LandmarkHeuristic landmarks, int goalX, int goalY, int[] goalDistances) {
+            this.landmarks = landmarks;
+            this.distances = landmarks.distances;
+            this.goalX = goalX;
+            this.goalY = goalY;
+            this.goalDistances = goalDistances;
+        }
+
+        @Override
+        public Heuristic toward(int goalX, int goalY) {
+            return landmarks.toward(goalX, goalY);
+        }
+
+        @Override
+        public boolean integral() {
+            return true;
+        }
+
+        public double h(int cell, int x, int y) {
+            int best = Math.abs(x - goalX) + Math.abs(y - goalY);
+            for(int i=0; i<goalDistances.length; i++) {
+                int d = distances[i][cell];
+                // Landmarks that can't reach both spaces tell us nothing.
+                if(d != Integer.MAX_VALUE && goalDistances[i] != Integer.MAX_VALUE) {
+                    int estimate = Math.abs(goalDistances[i] - d);
+                    if(estimate > best) best = estimate;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A bit-packed Grid read directly from a memory-mapped gridworld file, so large
+ * gridworlds load without copying them onto the heap and can be shared by any
+ * number of processes mapping the same file.
+ *
+ * File format: a 16 byte header (the magic number 0x47524944, the width, the
+ * height and a reserved int, all big-endian) followed by one bit per space in
+ * row-major order. Bit y * width + x is the (i & 7)th bit of byte i >> 3 and is
+ * set if the space is blocked. A gridworld can have at most Integer.MAX_VALUE spaces,
+ * which keeps its mapping under the 2 GB a single mapping can hold.
+ */
+public class MappedGrid implements Grid {
+
+    static final int MAGIC = 0x47524944; // "GRID"
+    static final int HEADER = 16;
+
+    int width, height;
+    long version;
+    MappedByteBuffer buffer;
+
+    MappedGrid(int width, int height, MappedByteBuffer buffer) {
+        this.width = width;
+        this.height = height;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a gridworld file into memory.
+     *
+     * @param file The gridworld file, as written by write.
+     * @param writable Whether setBlocked may change the file. If false, setBlocked
+     *                 throws a ReadOnlyBufferException.
+     * @throws IOException if the file isn't a gridworld file, its size is bad or it is
+     * truncated.
+     */
+    public static MappedGrid open(File file, boolean writable) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            // Check the header before mapping, so only the spaces it declares are mapped.
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while(header.hasRemaining()) {
+                if(channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            if(header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a gridworld file.");
+            }
+            int width = header.getInt(4);
+            int height = header.getInt(8);
+            if(!validSize(width, height)) {
+                throw new IOException(file + " has a bad size, " + width + "x" + height + ".");
+            }
+            long size = HEADER + dataBytes(width, height);
+            if(channel.size() < size) {
+                throw new IOException(file + " is truncated.");
+            }
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE :
+                    FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MappedGrid(width, height, buffer);
+        } finally {
+            // The mapping stays valid after the channel is closed.
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes a Grid to a gridworld file that can be opened with open. Grids with more
+     * than Integer.MAX_VALUE spaces throw an IllegalArgumentException before the file
+     * is touched.
+     */
+    public static void write(Grid grid, File file) throws IOException {
+        int width = grid.width();
+        int height = grid.height();
+        if(!validSize(width, height)) {
+            throw new IllegalArgumentException("Bad size " + width + "x" + height + ".");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER + dataBytes(width, height));
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, width);
+            buffer.putInt(8, height);
+            buffer.putInt(12, 0);
+            MappedGrid mapped = new MappedGrid(width, height, buffer);
+            for(int y=0; y<height; y++) {
+                for(int x=0; x<width; x++) {
+                    if(grid.isBlocked(x, y)) {
+                        mapped.setBlocked(x, y, true);
+                    }
+                }
+            }
+            buffer.force();
+        } finally {
+            raf.close();
+        }
+    }
+
+    // Whether every space has an int index, as isBlocked and setBlocked need.
+    static boolean validSize(int width, int height) {
+        return width > 0 && height > 0 && (long) width * height <= Integer.MAX_VALUE;
+    }
+
+    static long dataBytes(int width, int height) {
+        return ((long) width * height + 7) >>> 3;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        int i = y * width + x;
+        return (buffer.get(HEADER + (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+
+    public void setBlocked(int x, int y, boolean blocked) {
+        int i = y * width + x;
+        int index = HEADER + (i >>> 3);
+        byte b = buffer.get(index);
+        buffer.put(index, (byte) (blocked ? b | (1 << (i & 7)) : b & ~(1 << (i & 7))));
+        version++;
+    }
+
+    public long version() {
+        return version;
+    }
+}
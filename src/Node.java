@@ -32,12 +32,11 @@ public class Node {
         return isEqual;
     }
 
-    /* If I change the closedList to a hashmap, this method will need to be implemented.
+    // Must agree with equals, so Nodes can be used as keys in hashed collections.
     @Override
     public int hashCode() {
-
+        return 31 * x + y;
     }
-    */
 
 
     public String toString(){
@@ -45,19 +44,18 @@ public class Node {
             return "x = " + x + ", y = " + y + ", Not solvable.";
         }
         int count = 0;
-        String result = //"x: " + x + ", y: " + y + ", g: " + g + ", h: " + h + ", f " + f +
-                "\ntree: ";
-        result += "(" + this.x + "," + this.y + "), ";
+        StringBuilder result = new StringBuilder("\ntree: ");
+        result.append('(').append(x).append(',').append(y).append("), ");
         Node ptr = tree;
         while(ptr != null) {
-            result += "(" + ptr.x + "," + ptr.y + "), ";
+            result.append('(').append(ptr.x).append(',').append(ptr.y).append("), ");
             ptr = ptr.tree;
             count++;
             if(count%5==0){
-                result += "\n";
+                result.append('\n');
             }
         }
-        result += "\nPath length: " + (count+1);
-        return result;
+        result.append("\nPath length: ").append(count+1);
+        return result.toString();
     }
 }
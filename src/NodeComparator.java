@@ -1,7 +1,7 @@
 import java.util.Comparator;
 
 /**
- * Used to tell the PriorityQueue (min heap) in the search algorithms
+ * Used to tell the min heap in the search algorithms
  * how to compare Node objects (by their f values).
  */
 public class NodeComparator implements Comparator<Node> {
@@ -18,20 +18,14 @@ public class NodeComparator implements Comparator<Node> {
     public int compare(Node a, Node b){
         if(a.f < b.f) {
             return -1;
-        } else if(a.f == b.f) {
-            if(larger){
-                if(a.g > b.g) {
-                    return -1;
-                } else {
-                    return 1;
-                }
-            } else {
-                if(a.g > b.g) {
-                    return 1;
-                } else {
-                    return -1;
-                }
-            }
-        } else return 1;
+        } else if(a.f > b.f) {
+            return 1;
+        } else if(a.g == b.g) {
+            return 0;
+        } else if(larger) {
+            return a.g > b.g ? -1 : 1;
+        } else {
+            return a.g > b.g ? 1 : -1;
+        }
     }
 }
\ No newline at end of file
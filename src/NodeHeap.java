@@ -0,0 +1,74 @@
+/**
+ * The open list used by the A* search algorithms. An IndexedHeap that also keeps
+ * the Node stored at each cell, so Nodes can be looked up by their coordinates
+ * and have their keys lowered in place.
+ */
+public class NodeHeap extends IndexedHeap {
+
+    int width;
+    Node[] nodes;
+
+    /**
+     * @param width The width (x dimension) of the gridworld.
+     * @param height The height (y dimension) of the gridworld.
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     */
+    public NodeHeap(int width, int height, boolean larger) {
+        super(width * height, larger);
+        this.width = width;
+        nodes = new Node[width * height];
+    }
+
+    public void add(Node node) {
+        int cell = node.y * width + node.x;
+        nodes[cell] = node;
+        push(cell, node.f, node.g);
+    }
+
+    /**
+     * Removes and returns the Node with the smallest f value, or null if the heap is empty.
+     */
+    public Node poll() {
+        int cell = pop();
+        if(cell < 0) {
+            return null;
+        }
+        Node node = nodes[cell];
+        nodes[cell] = null;
+        return node;
+    }
+
+    /**
+     * Returns the Node with the smallest f value, or null if the heap is empty.
+     */
+    public Node peek() {
+        return size == 0 ? null : nodes[heap[0]];
+    }
+
+    /**
+     * Returns the Node in the heap at the given coordinates, or null if there is none.
+     */
+    public Node get(int x, int y) {
+        return nodes[y * width + x];
+    }
+
+    public boolean contains(int x, int y) {
+        return contains(y * width + x);
+    }
+
+    /**
+     * Reorders the heap after the given Node's f value has been lowered.
+     */
+    public void decreaseKey(Node node) {
+        decreaseKey(node.y * width + node.x, node.f, node.g);
+    }
+
+    @Override
+    public void clear() {
+        for(int i=0; i<size; i++) {
+            nodes[heap[i]] = null;
+        }
+        super.clear();
+    }
+}
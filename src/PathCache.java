@@ -0,0 +1,239 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of search results for answering the same start/goal queries
+ * against the same gridworlds over and over. Entries are keyed by the Grid (by
+ * identity), its version, the start and the goal, and the least recently used entry
+ * is evicted once the cache is full. Changing a Grid bumps its version, so entries
+ * for the old version simply stop matching and age out; nothing has to be flushed.
+ *
+ * Any part of a shortest path is itself a shortest path, so a query that misses is
+ * still answered from any cached path to the same goal that passes through its
+ * start. This only holds if every cached path is a shortest one, so only engines
+ * whose optimal() is true can search through the cache. Unreachable goals are cached
+ * as well, as empty paths. Grids whose version is -1 can't tell when they change and
+ * are never cached.
+ *
+ * Paths are kept as Paths from the start to the goal, and a path through a cached
+ * one is handed out as a view of its cells rather than a copy. All methods are
+ * synchronized, so one cache can serve many threads.
+ */
+public class PathCache {
+
+    int capacity;
+    LinkedHashMap<Key, CachedPath> entries;
+    // The cached paths to each goal, keyed with a start of -1, for subpath lookups.
+    Map<Key, List<CachedPath>> byGoal = new HashMap<Key, List<CachedPath>>();
+    long hits, subpathHits, misses, evictions;
+
+    /**
+     * @param capacity The most paths to keep.
+     */
+    public PathCache(int capacity) {
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Key, CachedPath>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedPath> eldest) {
+                if(size() <= PathCache.this.capacity) {
+                    return false;
+                }
+                forget(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the path from the start to the goal through the given engine, searching
+     * only if the cache can't answer the query. The engine is not shared; each thread
+     * using the cache needs its own.
+     *
+     * @param engine An engine that finds shortest paths; others throw an
+     *               IllegalArgumentException.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @return The goal Node with the path tree leading back to the start, in the same
+     * form Search.aStarSearch returns, or null if the goal is unreachable.
+     */
+    public Node search(GridSearch engine, Grid gridworld, int startX, int startY,
+                       int goalX, int goalY, Search.Type heuristic) {
+        if(!engine.optimal()) {
+            throw new IllegalArgumentException("Only paths from optimal engines can be cached.");
+        }
+        Path path = get(gridworld, startX, startY, goalX, goalY);
+        if(path == null) {
+            long version = gridworld.version();
+            // The engines' chains lead back from the goal, so they come out goal first.
+            path = engine.search(gridworld, startX, startY, goalX, goalY, heuristic) ?
+                    Path.of(engine.path(goalX, goalY), gridworld.width()).reverse() :
+                    new Path(gridworld.width(), new int[0]);
+            put(gridworld, version, startX, startY, goalX, goalY, path);
+        }
+        return path.toNode(heuristic);
+    }
+
+    /**
+     * Looks up the path from the start to the goal in the current version of the Grid.
+     *
+     * @return The path, an empty one if the goal is known to be unreachable, or null if
+     * the cache can't tell.
+     */
+    public synchronized Path get(Grid gridworld, int startX, int startY, int goalX, int goalY) {
+        long version = gridworld.version();
+        if(version < 0) {
+            misses++;
+            return null;
+        }
+        int start = startY * gridworld.width() + startX;
+        int goal = goalY * gridworld.width() + goalX;
+        CachedPath entry = entries.get(new Key(gridworld, version, start, goal));
+        if(entry != null) {
+            hits++;
+            return entry.path;
+        }
+        List<CachedPath> paths = byGoal.get(new Key(gridworld, version, -1, goal));
+        if(paths != null) {
+            for(CachedPath path : paths) {
+                int i = path.indexOf(start);
+                if(i >= 0) {
+                    subpathHits++;
+                    entries.get(path.key); // Counts as a use of the whole path.
+                    return path.path.subPath(i, path.path.length());
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Caches the path found from the start to the goal, which must be a shortest one.
+     *
+     * @param version The version of the Grid when the search started.
+     * @param path The path from the start to the goal, or an empty one if the goal is
+     *             unreachable.
+     */
+    public synchronized void put(Grid gridworld, long version, int startX, int startY,
+                                 int goalX, int goalY, Path path) {
+        if(version < 0) {
+            return;
+        }
+        int start = startY * gridworld.width() + startX;
+        int goal = goalY * gridworld.width() + goalX;
+        CachedPath entry = new CachedPath(new Key(gridworld, version, start, goal), path);
+        CachedPath old = entries.put(entry.key, entry);
+        if(old != null) {
+            forget(old);
+        }
+        if(path.length() > 0) {
+            Key group = new Key(gridworld, version, -1, goal);
+            List<CachedPath> paths = byGoal.get(group);
+            if(paths == null) {
+                paths = new ArrayList<CachedPath>();
+                byGoal.put(group, paths);
+            }
+            paths.add(entry);
+        }
+    }
+
+    // Removes an entry from the subpath index.
+    void forget(CachedPath entry) {
+        Key group = new Key(entry.key.grid, entry.key.version, -1, entry.key.goal);
+        List<CachedPath> paths = byGoal.get(group);
+        if(paths != null && paths.remove(entry) && paths.isEmpty()) {
+            byGoal.remove(group);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        byGoal.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long subpathHits() {
+        return subpathHits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "paths: " + entries.size() + ", hits: " + hits + ", subpath hits: " +
+                subpathHits + ", misses: " + misses + ", evictions: " + evictions;
+    }
+
+    static class Key {
+        Grid grid;
+        long version;
+        int start, goal;
+
+        Key(Grid grid, long version, int start, int goal) {
+            this.grid = grid;
+            this.version = version;
+            this.start = start;
+            this.goal = goal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return grid == k.grid && version == k.version && start == k.start && goal == k.goal;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(grid);
+            hash = 31 * hash + (int) (version ^ (version >>> 32));
+            hash = 31 * hash + start;
+            return 31 * hash + goal;
+        }
+    }
+
+    static class CachedPath {
+        Key key;
+        Path path;
+        // (cell << 32 | position) for every cell of the path, sorted, to find starts fast.
+        long[] index;
+
+        CachedPath(Key key, Path path) {
+            this.key = key;
+            this.path = path;
+            index = new long[path.length()];
+            for(int i=0; i<index.length; i++) {
+                index[i] = (long) path.cell(i) << 32 | i;
+            }
+            Arrays.sort(index);
+        }
+
+        // The position of a cell on the path, or -1 if the path doesn't pass through it.
+        int indexOf(int cell) {
+            int i = Arrays.binarySearch(index, (long) cell << 32);
+            if(i < 0) {
+                i = -i - 1;
+            }
+            return i < index.length && (int) (index[i] >>> 32) == cell ? (int) index[i] : -1;
+        }
+    }
+}
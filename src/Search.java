@@ -1,3 +1,4 @@
+import java.io.*;
 import java.util.*;
 
 public class Search {
@@ -5,9 +6,9 @@ public class Search {
     public static void main(String[] args){
         int[][] grid = genGrid(10, 0.25f, true);
         // larger = true: favor larger g values, false: favor smaller g values.
-        Comparator<Node> nodeComparator = new NodeComparator(true);
-        PriorityQueue<Node> openList = new PriorityQueue<Node>(nodeComparator);
-        ArrayList<Node> closedList = new ArrayList<Node>();
+        NodeComparator nodeComparator = new NodeComparator(true);
+        NodeHeap openList = new NodeHeap(grid.length, grid.length, nodeComparator.larger);
+        ClosedSet closedList = new ClosedSet(grid.length, grid.length);
         SearchTracker regular = new SearchTracker(null, false, null, 0);
 
         printGrid(grid);
@@ -37,15 +38,25 @@ public class Search {
      * @return The 2D boolean array gridworld object.
      */
     public static int[][] genGrid(int dim, float p, boolean visibility){
-        int[][] gridworld = new int[dim][dim];
-        for (int i=0; i<dim; i++){
-            for (int j=0; j<dim; j++){
-                gridworld[i][j] = new Random().nextDouble() <= p ?
+        return genGrid(dim, dim, p, visibility);
+    }
+
+    /**
+     * Generates a gridworld object of size width x height (see above). index
+     * width-1, height-1 is the goal state. For large or reproducible gridworlds use
+     * GridGenerator instead.
+     */
+    public static int[][] genGrid(int width, int height, float p, boolean visibility){
+        int[][] gridworld = new int[width][height];
+        Random random = new Random();
+        for (int i=0; i<width; i++){
+            for (int j=0; j<height; j++){
+                gridworld[i][j] = random.nextDouble() <= p ?
                         -1 : (visibility? Integer.MAX_VALUE : 0);
             }
         }
         gridworld[0][0] = 0;
-        gridworld[dim-1][dim-1] = Integer.MAX_VALUE;
+        gridworld[width-1][height-1] = Integer.MAX_VALUE;
         return gridworld;
     }
 
@@ -53,24 +64,14 @@ public class Search {
      * Prints a character graphic representation of the specified gridworld.
      */
     public static void printGrid(int[][] gridworld){
-        System.out.print("Coordinates:\n  ");
-        for(int i=0; i<gridworld.length-2 && i<10; i++) System.out.print(" " + i);
-        System.out.println(" ...");
-        for (int i=0; i<gridworld.length; i++){
-            if(i<gridworld.length-3 && i<10) {
-                System.out.print(" " + i + " ");
-            } else if(i < 13) {
-                System.out.print(" " + "." + " ");
-            } else System.out.print("   ");
-            for (int j=0; j<gridworld.length; j++){
-                if(gridworld[j][i] == -1){
-                    System.out.print("B ");
-                } else{
-                    System.out.print("o ");
-                }
-            }
-            System.out.println();
-        }
+        printGrid(new ArrayGrid(gridworld));
+    }
+
+    /**
+     * Prints a character graphic representation of the specified gridworld.
+     */
+    public static void printGrid(Grid gridworld){
+        render(gridworld, null);
     }
 
     /**
@@ -78,46 +79,27 @@ public class Search {
      * draws the path of the agent Node traveled (marked with X).
      */
     public static void printGrid(int[][] gridworld, Node agent){
+        printGrid(new ArrayGrid(gridworld), agent);
+    }
+
+    /**
+     * Prints a character graphic representation of the specified gridworld and
+     * draws the path of the agent Node traveled (marked with X).
+     */
+    public static void printGrid(Grid gridworld, Node agent){
         if(agent.x < 0 || agent.y < 0) {
             return;
         }
+        render(gridworld, agent);
+    }
 
-        // Create a copy of the gridworld so we don't modify the original.
-        int[][] gridworld1 = new int[gridworld.length][gridworld.length];
-        for (int i=0; i<gridworld1.length; i++) {
-            for(int j=0; j<gridworld1.length; j++) {
-                gridworld1[j][i] = gridworld[j][i];
-            }
-        }
-
-        // Mark the path the agent traveled.
-        Node ptr = agent;
-        gridworld1[ptr.x][ptr.y] = -2;
-        while(ptr.tree != null) {
-            gridworld1[ptr.tree.x][ptr.tree.y] = -2;
-            ptr = ptr.tree;
-        }
-
-        // Print the resultant gridworld.
-        System.out.print("Coordinates:\n  ");
-        for(int i=0; i<gridworld1.length-2 && i<10; i++) System.out.print(" " + i);
-        System.out.println(" ...");
-        for (int i=0; i<gridworld1.length; i++){
-            if(i<gridworld1.length-3 && i<10) {
-                System.out.print(" " + i + " ");
-            } else if(i < 13) {
-                System.out.print(" " + "." + " ");
-            } else System.out.print("   ");
-            for (int j=0; j<gridworld1.length; j++){
-                if(gridworld1[j][i] == -1){
-                    System.out.print("b ");
-                } else if(gridworld1[j][i] == -2){
-                    System.out.print("X ");
-                } else {
-                    System.out.print("o ");
-                }
-            }
-            System.out.println();
+    // Renders through one buffered Writer instead of a print call per space.
+    static void render(Grid gridworld, Node agent){
+        try {
+            GridRenderer.render(gridworld, agent, new BufferedWriter(
+                    new OutputStreamWriter(System.out), 1 << 16));
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -128,58 +110,162 @@ public class Search {
      * encounters a blocked space in this path.
      *
      * @param gridworld The underlying gridworld the agent must travel through
-     * @param direction Whether to perform forwards or backwards Repeated A* search.
+     * @param direction Whether to perform forwards, backwards or adaptive Repeated A* search,
+     *                  or to replan incrementally with D* Lite.
      * @param heuristic The heuristic formula to use.
      * @return The Node with the tree path the agent can travel to the goal. If the
      * goal is impossible to reach, the path the agent traveled until it concluded
      * failure.
      */
     public static Node repeatedAStarSearch(int[][] gridworld, Direction direction,
-                                           Type heuristic, Comparator<Node> nodeComparator) {
+                                           Type heuristic, NodeComparator nodeComparator) {
+        return repeatedAStarSearch(new ArrayGrid(gridworld), direction, heuristic,
+                nodeComparator);
+    }
+
+    /**
+     * Repeated A* search (see above) through any Grid implementation.
+     */
+    public static Node repeatedAStarSearch(Grid gridworld, Direction direction,
+                                           Type heuristic, NodeComparator nodeComparator) {
+        return repeatedAStarSearch(gridworld, 0, 0, gridworld.width()-1, gridworld.height()-1,
+                direction, heuristic, nodeComparator);
+    }
+
+    /**
+     * Repeated A* search (see above) between any two spaces of a gridworld of any shape.
+     * The gridworld is neither copied nor modified.
+     *
+     * @param direction FORWARD, ADAPTIVE and INCREMENTAL travel from start to goal,
+     *                  BACKWARD travels from goal to start.
+     */
+    public static Node repeatedAStarSearch(Grid gridworld, int startX, int startY,
+                                           int goalX, int goalY, Direction direction,
+                                           Type heuristic, NodeComparator nodeComparator) {
+        return repeatedAStarSearch(gridworld, startX, startY, goalX, goalY, direction,
+                heuristic, nodeComparator, null);
+    }
+
+    /**
+     * Repeated A* search (see above) that reports every replan and every agent move
+     * to the given listener (e.g. a SearchMetrics).
+     */
+    public static Node repeatedAStarSearch(Grid gridworld, int startX, int startY,
+                                           int goalX, int goalY, Direction direction,
+                                           Type heuristic, NodeComparator nodeComparator,
+                                           SearchListener listener) {
+        return repeatedAStarSearch(gridworld, startX, startY, goalX, goalY, direction,
+                heuristic, nodeComparator, 1, 0, listener);
+    }
+
+    /**
+     * Repeated A* search (see above) where every replan runs under a time budget. With
+     * an epsilon above 1, FORWARD and BACKWARD searches use an AnytimeSearch: each
+     * replan finds a path at most epsilon times longer than the shortest, then
+     * improves it with ARA* until budgetNanos have passed. The budget starts once the
+     * first path is found: that search always runs to the end.
+     *
+     * @param epsilon The weight of h in the first round of each replan. 1 searches for
+     *                shortest paths as usual; the other directions ignore it.
+     * @param budgetNanos How long each replan may keep improving its first path, or 0
+     *                    for Weighted A*.
+     */
+    public static Node repeatedAStarSearch(Grid gridworld, int startX, int startY,
+                                           int goalX, int goalY, Direction direction,
+                                           Type heuristic, NodeComparator nodeComparator,
+                                           double epsilon, long budgetNanos,
+                                           SearchListener listener) {
+        if(direction == Direction.BACKWARD) {
+            int x = startX, y = startY;
+            startX = goalX;
+            startY = goalY;
+            goalX = x;
+            goalY = y;
+        }
         // Create a duplicate gridworld object with no information on blocked spaces.
         // Update this object as the agent discovers blocked spaces.
-        int goal;
-        int dim = gridworld.length-1;
-        int[][] agentWorld = new int[gridworld.length][gridworld.length];
-        PriorityQueue<Node> openList = new PriorityQueue<Node>(nodeComparator);
-        ArrayList<Node> closedList = new ArrayList<Node>();
-        SearchTracker t = new SearchTracker(direction, true, null, 0);
+        Grid agentWorld = new BitGrid(gridworld.width(), gridworld.height());
+        // Tracks which spaces agentWorld still connects, so once the known blocked spaces
+        // cut the agent off from the goal the run fails without another search.
+        ComponentIndex components = new ComponentIndex(agentWorld);
+        // The search state lives in the engine's own arrays, so agentWorld only ever
+        // records blocked spaces and a single engine is reused for every search.
+        GridSearch engine = null;
+        DStarLite planner = null;
+        if(direction == Direction.INCREMENTAL) {
+            planner = new DStarLite(agentWorld, startX, startY, goalX, goalY, heuristic);
+            planner.setListener(listener);
+        } else {
+            if(direction == Direction.HIERARCHICAL) {
+                engine = new HierarchicalSearch(gridworld.width(), gridworld.height(),
+                        nodeComparator.larger, HierarchicalSearch.DEFAULT_SIZE);
+            } else if(epsilon > 1 && direction != Direction.ADAPTIVE) {
+                engine = new AnytimeSearch(gridworld.width(), gridworld.height(),
+                        nodeComparator.larger, epsilon, budgetNanos);
+            } else {
+                engine = new GridSearch(gridworld.width(), gridworld.height(),
+                        nodeComparator.larger);
+            }
+            engine.setAdaptive(direction == Direction.ADAPTIVE);
+            engine.setListener(listener);
+        }
+        SearchTracker t = new SearchTracker(direction, true, null, 0, goalX, goalY);
+        t.listener = listener;
         Node presumedPath;
 
         // Initialize values based on the direction the agent will travel.
-        if(direction == Direction.FORWARD) {
-            t.agent = new Node(0, 0, 0,
-                    heuristicCalc(heuristic, 0, 0, dim, dim), null);
-            t.path = new Node(0, 0, 0,
-                    heuristicCalc(heuristic, 0, 0, dim, dim), null);
-            goal = dim;
-        } else { // BACKWARD
-            t.agent = new Node(dim, dim, 0,
-                    heuristicCalc(heuristic, dim, dim, 0, 0), null);
-            t.path = new Node(dim, dim, 0,
-                    heuristicCalc(heuristic, dim, dim, 0, 0), null);
-            goal = 0;
-        }
+        t.agent = new Node(startX, startY, 0,
+                heuristicCalc(heuristic, startX, startY, goalX, goalY), null);
+        t.path = new Node(startX, startY, 0,
+                heuristicCalc(heuristic, startX, startY, goalX, goalY), null);
 
-        Node temp;
         while(!t.finished) {
             t.counter ++;
             t.agent.search = t.counter;
             t.agent.g = 0;
-            agentWorld[t.agent.x][t.agent.y] = 0;
-            agentWorld[goal][goal] = Integer.MAX_VALUE;
-            closedList.clear();
-            openList.clear();
-            temp = aStarSearch(agentWorld,
-                    openList, closedList, heuristic, t);
-            temp.search = t.counter;
-            presumedPath = reversePath(temp);
-            if(openList.isEmpty()) { // Failure.
-                break;
+            if(!components.connected(t.agent.x, t.agent.y, goalX, goalY)) {
+                if(listener != null) {
+                    listener.searchFinished(false, 0, 0, 0, 0, 0);
+                }
+                break; // Failure.
+            }
+            if(planner != null) {
+                if(!planner.plan()) {
+                    break; // Failure.
+                }
+                presumedPath = planner.path();
+                if(presumedPath == null) {
+                    // The costs say the goal is reachable but no neighbor leads on to it.
+                    if(listener != null) {
+                        listener.searchFinished(false, 0, 0, 0, 0, 0);
+                    }
+                    break; // Failure.
+                }
+            } else {
+                if(!engine.search(agentWorld, t.agent.x, t.agent.y, goalX, goalY, heuristic)) {
+                    break; // Failure.
+                }
+                presumedPath = reversePath(engine.path(goalX, goalY));
             }
             t.agent = moveAgent(t, presumedPath, agentWorld, gridworld);
+            if(!t.finished) {
+                components.blocked(agentWorld, t.blockedX, t.blockedY);
+            }
+            if(planner != null && !t.finished) {
+                // The space after the agent's new position on the planned path is the
+                // one it found blocked. Only the search around it needs repairing.
+                int blocked = planner.nextOnPath(t.agent.x, t.agent.y);
+                planner.moveTo(t.agent.x, t.agent.y);
+                planner.blocked(blocked % gridworld.width(), blocked / gridworld.width());
+            } else if(engine instanceof HierarchicalSearch && !t.finished) {
+                // Only the clusters around the newly blocked space need rebuilding.
+                HierarchicalSearch hierarchy = (HierarchicalSearch) engine;
+                int blocked = hierarchy.nextOnPath(t.agent.x, t.agent.y);
+                hierarchy.changed(agentWorld, blocked % gridworld.width(),
+                        blocked / gridworld.width());
+            }
         }
-        return (t.agent.x == goal && t.agent.y == goal)? t.path :
+        return (t.agent.x == goalX && t.agent.y == goalY)? t.path :
                 new Node(-1,-1, -1, -1, null);
     }
 
@@ -197,18 +283,34 @@ public class Search {
      */
     public static Node moveAgent(SearchTracker tracker, Node presumedPath, int[][] agentWorld,
                                  int[][] gridworld) {
+        return moveAgent(tracker, presumedPath, new ArrayGrid(agentWorld),
+                new ArrayGrid(gridworld));
+    }
+
+    /**
+     * Moves the agent along the presumed path (see above) through any Grid implementation.
+     */
+    public static Node moveAgent(SearchTracker tracker, Node presumedPath, Grid agentWorld,
+                                 Grid gridworld) {
         boolean finished = true;
+        int moves = 0;
         Node ptr = presumedPath;
         while(ptr.tree != null){
-            if(gridworld[ptr.tree.x][ptr.tree.y] == -1) {
-                agentWorld[ptr.tree.x][ptr.tree.y] = -1;
+            if(gridworld.isBlocked(ptr.tree.x, ptr.tree.y)) {
+                agentWorld.setBlocked(ptr.tree.x, ptr.tree.y, true);
+                tracker.blockedX = ptr.tree.x;
+                tracker.blockedY = ptr.tree.y;
                 finished = false;
                 ptr.tree = null;
                 break;
             } else {
                 ptr = ptr.tree;
+                moves++;
             }
         }
+        if(tracker.listener != null) {
+            tracker.listener.agentMoved(moves, finished ? 0 : 1);
+        }
 
         // Update whether the agent has reached the goal.
         if(finished) tracker.finished = true;
@@ -235,84 +337,189 @@ public class Search {
      * @return The reversed path
      */
     public static Node reversePath(Node path) {
-        if(path == null) { // Null pointer agent
-            return null;
-        } else {
-            //Reverse the path order.
-            Stack<Node> temp = new Stack<Node>();
-            temp.push(path);
-            Node ptr = path.tree;
-            if(ptr != null){
-                while(ptr.tree != null) {
-                    temp.push(ptr);
-                    ptr = ptr.tree;
-                }
-                temp.push(ptr);
-            } else {
-                return temp.pop();
-            }
+        // Turn the links around in place, one Node at a time.
+        Node reversed = null;
+        while(path != null) {
+            Node next = path.tree;
+            path.tree = reversed;
+            reversed = path;
+            path = next;
+        }
+        return reversed;
+    }
 
-            // Reconstruct the path.
-            ptr = temp.pop();
-            path = ptr;
-            while(!temp.empty()) {
-                ptr.tree = temp.pop();
-                ptr = ptr.tree;
+    /**
+     * An A* search from (0, 0) to (width-1, height-1) of any Grid implementation. The
+     * search state is kept by a GridSearch, so the Grid is never modified.
+     *
+     * @param gridworld The gridworld to apply the algorithm to.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @return Goal Node with path tree if solvable, start Node if not (with tree = null).
+     */
+    public static Node aStarSearch(Grid gridworld, Type heuristic, NodeComparator nodeComparator){
+        return aStarSearch(gridworld, heuristic, nodeComparator, Algorithm.ASTAR);
+    }
+
+    /**
+     * Searches from (0, 0) to (width-1, height-1) of any Grid implementation with the
+     * given algorithm. Every algorithm finds a shortest path except HIERARCHICAL, whose
+     * paths are near-optimal: they pass through the entrances its ClusterGraph picked.
+     *
+     * @param gridworld The gridworld to apply the algorithm to.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @param algorithm The search algorithm to use.
+     * @return Goal Node with path tree if solvable, start Node if not (with tree = null).
+     */
+    public static Node aStarSearch(Grid gridworld, Type heuristic, NodeComparator nodeComparator,
+                                   Algorithm algorithm){
+        return aStarSearch(gridworld, 0, 0, gridworld.width()-1, gridworld.height()-1,
+                heuristic, nodeComparator, algorithm);
+    }
+
+    /**
+     * Searches between any two spaces of a gridworld of any shape with the given
+     * algorithm. The gridworld is neither copied nor modified, so one loaded gridworld
+     * can serve any number of queries. To run many queries, reuse one engine from
+     * newEngine (or a BatchSearch) rather than calling this for each of them. There is
+     * no path out of a blocked start or into a blocked goal, whatever the algorithm.
+     *
+     * @param gridworld The gridworld to apply the algorithm to.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @param algorithm The search algorithm to use.
+     * @return Goal Node with path tree if solvable, start Node if not (with tree = null).
+     */
+    public static Node aStarSearch(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                                   Type heuristic, NodeComparator nodeComparator,
+                                   Algorithm algorithm){
+        return aStarSearch(gridworld, startX, startY, goalX, goalY, heuristic, nodeComparator,
+                algorithm, null);
+    }
+
+    /**
+     * Searches between any two spaces (see above), reporting the search to the given
+     * listener (e.g. a SearchMetrics).
+     */
+    public static Node aStarSearch(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                                   Type heuristic, NodeComparator nodeComparator,
+                                   Algorithm algorithm, SearchListener listener){
+        return aStarSearch(gridworld, startX, startY, goalX, goalY,
+                Heuristic.of(heuristic, goalX, goalY), nodeComparator, algorithm, listener);
+    }
+
+    /**
+     * Searches between any two spaces (see above) with any Heuristic toward the goal,
+     * such as a HeuristicField or a LandmarkHeuristic's.
+     */
+    public static Node aStarSearch(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                                   Heuristic heuristic, NodeComparator nodeComparator,
+                                   Algorithm algorithm, SearchListener listener){
+        return aStarSearch(gridworld, startX, startY, goalX, goalY, heuristic, nodeComparator,
+                algorithm, listener, null);
+    }
+
+    /**
+     * Searches between any two spaces (see above), first asking a ComponentIndex of the
+     * gridworld, such as ComponentIndex.of(gridworld), whether the goal can be reached
+     * at all. If it can't, the search fails at once and is reported to the listener as
+     * a search that expanded nothing. Building the index reads the whole gridworld, so
+     * it pays off over many queries against a gridworld that rarely changes.
+     *
+     * @param components The index to check first, or null to always search.
+     */
+    public static Node aStarSearch(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                                   Heuristic heuristic, NodeComparator nodeComparator,
+                                   Algorithm algorithm, SearchListener listener,
+                                   ComponentIndex components){
+        long startNanos = System.nanoTime();
+        if(components == null || components.connected(startX, startY, goalX, goalY)) {
+            GridSearch engine = newEngine(gridworld.width(), gridworld.height(),
+                    nodeComparator.larger, algorithm);
+            engine.setListener(listener);
+            if(engine.search(gridworld, startX, startY, goalX, goalY, heuristic)) {
+                return engine.path(goalX, goalY); // Success.
             }
-            ptr.tree = null;
-            return path;
+        } else if(listener != null) {
+            listener.searchFinished(false, 0, 0, 0, 0, System.nanoTime() - startNanos);
         }
+        return new Node(startX, startY, 0,
+                heuristic.h(startY * gridworld.width() + startX, startX, startY), null); // Failure.
     }
 
+    /**
+     * Creates the search engine for the given algorithm. It can be reused for any number
+     * of searches over gridworlds of the given size.
+     */
+    public static GridSearch newEngine(int width, int height, boolean larger,
+                                       Algorithm algorithm) {
+        switch(algorithm) {
+            case ASTAR_BUCKETS:
+                GridSearch engine = new GridSearch(width, height, larger);
+                engine.setBucketQueue(true);
+                return engine;
+            case JPS:
+                return new JumpPointSearch(width, height, larger, false);
+            case JPS_PLUS:
+                return new JumpPointSearch(width, height, larger, true);
+            case BIDIRECTIONAL:
+                return new BidirectionalSearch(width, height, larger, false);
+            case PARALLEL_BIDIRECTIONAL:
+                return new BidirectionalSearch(width, height, larger, true);
+            case HIERARCHICAL:
+                return new HierarchicalSearch(width, height, larger,
+                        HierarchicalSearch.DEFAULT_SIZE);
+            case WEIGHTED_ASTAR:
+                return new AnytimeSearch(width, height, larger, AnytimeSearch.DEFAULT_EPSILON, 0);
+            case ANYTIME:
+                return new AnytimeSearch(width, height, larger, AnytimeSearch.DEFAULT_EPSILON,
+                        AnytimeSearch.DEFAULT_BUDGET);
+            default:
+                return new GridSearch(width, height, larger);
+        }
+    }
 
     /**
-     * An A* search algorithm implemented utilizing a min binary heap structure.
+     * An A* search algorithm implemented utilizing an indexed min binary heap structure.
      *
      * param repeated Whether this method is being used in A* repeated or not (deprecated).
      * @param gridworld The gridworld to apply the algorithm to.
      * @param heuristic The heuristic formula to be used when searching.
      * @return Goal Node with path tree if solvable, start Node if not (with tree = null).
      */
-    public static Node aStarSearch(int[][] gridworld, PriorityQueue<Node> openList,
-                                   ArrayList<Node> closedList, Type heuristic,
+    public static Node aStarSearch(int[][] gridworld, NodeHeap openList,
+                                   ClosedSet closedList, Type heuristic,
                                    SearchTracker tracker){
-        int dim = gridworld.length-1;
+        int width = gridworld.length;
+        int height = gridworld[0].length;
         Node start;
-        boolean condition;
-        int goal;
+        setDefaultGoal(tracker, width, height);
+        int goalX = tracker.goalX;
+        int goalY = tracker.goalY;
 
-        // If running A* repeated, we want the algorithm to start at the agent's current position.
-        // If running A* repeated, we want to set goal coordinates based on it's direction.
-        // The while loop condition depends on whether we're running repeated A* search or not.
-        if(tracker.repeated) {
+        // If running A* repeated (or given an agent), we want the algorithm to start at the
+        // agent's current position.
+        if(tracker.repeated || tracker.agent != null) {
             start = tracker.agent;
-            goal = tracker.direction == Direction.FORWARD ? dim : 0;
-            condition = gridworld[goal][goal] > start.f;
         } else {
             start = new Node(0, 0, 0, heuristicCalc(heuristic, 0,0,
-                    dim, dim), null);
-            goal = dim;
-            condition = true; // The first iteration of the loop always happens.
-
+                    goalX, goalY), null);
         }
 
-        Node temp;
         openList.add(start);
-        while(condition) {
+        while(!openList.isEmpty()) {
             Node curr = openList.poll();
-            if (curr.x == goal && curr.y == goal) return curr; // Success.
-            closedList.add(curr);
+            if (curr.x == goalX && curr.y == goalY) return curr; // Success.
+            closedList.add(curr.x, curr.y);
             // Check if the agent can move up, right, down, or left and wont be out of bounds
             // or blocked.
             if(curr.y-1 >= 0 && gridworld[curr.x][curr.y-1] != -1) {
                 performAction(Direction.UP, heuristic, curr, openList, closedList,
                         gridworld, tracker);
             }
-            if(curr.x+1 <= dim && gridworld[curr.x+1][curr.y] != -1) {
+            if(curr.x+1 < width && gridworld[curr.x+1][curr.y] != -1) {
                 performAction(Direction.RIGHT, heuristic, curr, openList, closedList,
                         gridworld, tracker);
             }
-            if(curr.y+1 <= dim && gridworld[curr.x][curr.y+1] != -1) {
+            if(curr.y+1 < height && gridworld[curr.x][curr.y+1] != -1) {
                 performAction(Direction.DOWN, heuristic, curr, openList, closedList,
                         gridworld, tracker);
             }
@@ -320,17 +527,6 @@ public class Search {
                 performAction(Direction.LEFT, heuristic, curr, openList, closedList,
                         gridworld, tracker);
             }
-            // Update condition statement for while loop.
-            if(tracker.repeated) {
-                temp = openList.peek();
-                if(temp == null){
-                    return start;
-                } else {
-                    condition = gridworld[goal][goal] > temp.f;
-                }
-            } else {
-                condition = openList.size() != 0 ;
-            }
         }
         return start; // Failure.
     }
@@ -341,11 +537,11 @@ public class Search {
      * @param curr The current position of the agent.
      */
     public static void performAction(Direction direction, Type heuristic, Node curr,
-                                     PriorityQueue<Node> openList, ArrayList<Node> closedList,
+                                     NodeHeap openList, ClosedSet closedList,
                                      int[][] gridworld, SearchTracker tracker) {
         int x = curr.x;
         int y = curr.y;
-        int goal = tracker.direction == Direction.BACKWARD ? 0 : gridworld.length-1;
+        setDefaultGoal(tracker, gridworld.length, gridworld[0].length);
 
         // Initialize new coordinates based on the direction to explore.
         switch(direction) {
@@ -363,63 +559,39 @@ public class Search {
                 break;
         }
 
+        if(closedList.contains(x, y)){
+            return;
+        }
         Node child, temp;
-        child = new Node(x, y, 0,
-                heuristicCalc(heuristic, x, y, goal, goal), curr);
-
-        // A* repeated search performs actions differently than regular A* search.
-        if(tracker.repeated) {
-            if(closedList.contains(child)){
-                return;
-            }
-            if(child.search < tracker.counter) {
-                child.g = Integer.MAX_VALUE;
-                gridworld[child.x][child.y] = Integer.MAX_VALUE;
-                child.search = tracker.counter;
-            }
-            if(gridworld[child.x][child.y] > curr.g+1) {
-                child.g = curr.g+1;
-                gridworld[child.x][child.y] = curr.g+1;
-                child.tree = curr;
-                if(openList.contains(child) &&
-                        (temp = nodeSearch(openList, child)).f > child.f) {
-                    temp.f = child.f;
-                } else {
-                    openList.add(child);
-                }
-            }
-        } else {
-            // Not being used in repeated A* search.
-            gridworld[x][y] = curr.g + 1;
-            child.g = curr.g+1;
-            // Check if the child is in the openList or the closedList.
-            if(!closedList.contains(child) && !openList.contains(child)) {
-                openList.add(child);
-                // Check if the child is in the openList with a higher path cost.
-            } else if(openList.contains(child) &&
-                    (temp = nodeSearch(openList, child)).f > child.f) {
-                temp.f = child.f;
-            }
+        child = new Node(x, y, curr.g+1,
+                heuristicCalc(heuristic, x, y, tracker.goalX, tracker.goalY), curr);
+        child.search = tracker.counter;
+
+        // Check if the child is already in the openList. If it is with a higher path cost,
+        // lower its key so the heap reorders it.
+        temp = openList.get(x, y);
+        if(temp == null) {
+            gridworld[x][y] = child.g;
+            openList.add(child);
+        } else if(temp.g > child.g) {
+            gridworld[x][y] = child.g;
+            temp.g = child.g;
+            temp.f = child.f;
+            temp.tree = curr;
+            openList.decreaseKey(temp);
         }
     }
 
     /**
-     * Searches a PriorityQueue<Node> for the given Node via an Iterator object.
-     * Returns the node upon successful search or the original key if the Queue
-     * does not contain the node.
-     * @param heap The PriorityQueue<Node> to search.
-     * @param key The Node to find.
-     * @return The Node if found, key if not found.
+     * Trackers made without goal coordinates search for the corner given by their
+     * direction: (0, 0) when BACKWARD, (width-1, height-1) otherwise.
      */
-    public static Node nodeSearch(PriorityQueue<Node> heap, Node key) {
-        Iterator<Node> it = heap.iterator();
-        while(it.hasNext()) {
-            Node curr = it.next();
-            if(curr.equals(key)) {
-                return curr;
-            }
+    static void setDefaultGoal(SearchTracker tracker, int width, int height) {
+        if(tracker.goalX < 0) {
+            boolean backward = tracker.direction == Direction.BACKWARD;
+            tracker.goalX = backward ? 0 : width-1;
+            tracker.goalY = backward ? 0 : height-1;
         }
-        return null;
     }
 
     /**
@@ -431,6 +603,29 @@ public class Search {
         CHEBYSHEV;
     }
 
+    /**
+     * The search algorithms available to aStarSearch over a Grid.
+     */
+    public enum Algorithm {
+        ASTAR,
+        // ASTAR with a BucketQueue for its open list. Needs a whole-number heuristic.
+        ASTAR_BUCKETS,
+        // Jump Point Search for 4-connected gridworlds with uniform move costs.
+        JPS,
+        // Jump Point Search reading precomputed jump distances from a JumpTable.
+        JPS_PLUS,
+        // A* from the start and from the goal at once, stopping where they meet.
+        BIDIRECTIONAL,
+        // BIDIRECTIONAL with the two halves running on two threads.
+        PARALLEL_BIDIRECTIONAL,
+        // Near-optimal hierarchical A* (HPA*) over the Grid's ClusterGraph.
+        HIERARCHICAL,
+        // Weighted A* with epsilon 2: paths at most twice as long as the shortest.
+        WEIGHTED_ASTAR,
+        // WEIGHTED_ASTAR improved with ARA* for up to 10 ms once the first path is found.
+        ANYTIME;
+    }
+
     /**
      * Cardinal directions used to describe the agent's movements.
      */
@@ -440,7 +635,13 @@ public class Search {
         LEFT,
         RIGHT,
         FORWARD,
-        BACKWARD;
+        BACKWARD,
+        // Forward Repeated A* that reuses the h values learned by earlier searches.
+        ADAPTIVE,
+        // Forward travel replanned incrementally with D* Lite instead of Repeated A*.
+        INCREMENTAL,
+        // Forward Repeated A* planned hierarchically (HPA*) over clusters of agentWorld.
+        HIERARCHICAL;
     }
 
     /**
@@ -450,7 +651,7 @@ public class Search {
      */
     public static double heuristicCalc(Type type, int x1, int y1, int x2, int y2){
         if(type == Type.EUCLIDIAN) {
-            return Math.sqrt((x1-x2)^2 + (y1-y2)^2);
+            return Math.sqrt((x1-x2)*(x1-x2) + (y1-y2)*(y1-y2));
         } else if(type == Type.MANHATTAN) {
             return Math.abs(x1-x2) + Math.abs(y1-y2);
         } else {
@@ -0,0 +1,188 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the search algorithms over seeded gridworlds, so runs are reproducible and
+ * results can be compared between changes. Every combination of gridworld size, block
+ * probability, heuristic and tie-breaking mode is run for a few warmup iterations and
+ * then timed for a few measurement iterations, JMH style. For each one it reports:
+ *
+ *   ops/s   searches completed per second
+ *   exp/s   nodes expanded per second
+ *   MB/s    bytes allocated per second by the benchmark thread
+ *   B/op    bytes allocated per search
+ *
+ * Usage: java SearchBenchmark [sizes=101,1001] [densities=0.1,0.2,0.3] [seed=1]
+ *        [warmup=2] [iterations=5] [time=1000] [benchmarks=astar,forward,backward]
+ *
+ * time is the length of each iteration in milliseconds. Sizes up to 10001 are
+ * supported but need a large heap (-Xmx). The same benchmarks run under JMH in
+ * jmh/benchmarks/SearchBenchmarks, built with the pom's jmh profile.
+ */
+public class SearchBenchmark {
+
+    int[] sizes = {101, 1001};
+    float[] densities = {0.1f, 0.2f, 0.3f};
+    long seed = 1;
+    int warmup = 2;
+    int iterations = 5;
+    long time = 1000;
+    String[] benchmarks = {"astar", "forward", "backward"};
+    // The engine astar reuses for every search of one measurement.
+    GridSearch engine;
+
+    public static void main(String[] args) {
+        SearchBenchmark benchmark = new SearchBenchmark();
+        for(String arg : args) {
+            benchmark.option(arg);
+        }
+        benchmark.run();
+    }
+
+    void option(String arg) {
+        int split = arg.indexOf('=');
+        if(split < 0) {
+            throw new IllegalArgumentException("Expected name=value, got " + arg);
+        }
+        String name = arg.substring(0, split);
+        String[] values = arg.substring(split+1).split(",");
+        if(name.equals("sizes")) {
+            sizes = new int[values.length];
+            for(int i=0; i<values.length; i++) sizes[i] = Integer.parseInt(values[i]);
+        } else if(name.equals("densities")) {
+            densities = new float[values.length];
+            for(int i=0; i<values.length; i++) densities[i] = Float.parseFloat(values[i]);
+        } else if(name.equals("seed")) {
+            seed = Long.parseLong(values[0]);
+        } else if(name.equals("warmup")) {
+            warmup = Integer.parseInt(values[0]);
+        } else if(name.equals("iterations")) {
+            iterations = Integer.parseInt(values[0]);
+        } else if(name.equals("time")) {
+            time = Long.parseLong(values[0]);
+        } else if(name.equals("benchmarks")) {
+            benchmarks = values;
+        } else {
+            throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    void run() {
+        System.out.printf("%-10s %6s %5s %-10s %-7s %12s %14s %10s %12s%n", "Benchmark", "Size",
+                "p", "Heuristic", "Larger", "ops/s", "exp/s", "MB/s", "B/op");
+        for(int size : sizes) {
+            for(float p : densities) {
+                Grid gridworld = seededGrid(size, p, seed);
+                for(String benchmark : benchmarks) {
+                    for(Search.Type heuristic : Search.Type.values()) {
+                        for(boolean larger : new boolean[]{true, false}) {
+                            measure(benchmark, gridworld, size, p, heuristic, larger);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    void measure(String benchmark, Grid gridworld, int size, float p, Search.Type heuristic,
+                 boolean larger) {
+        NodeComparator nodeComparator = new NodeComparator(larger);
+        engine = Search.newEngine(gridworld.width(), gridworld.height(), larger,
+                Search.Algorithm.ASTAR);
+        for(int i=0; i<warmup; i++) {
+            iteration(benchmark, gridworld, heuristic, nodeComparator);
+        }
+        long ops = 0, nanos = 0, bytes = 0;
+        // Allocation can only be measured on JVMs that count it per thread.
+        boolean measured = true;
+        for(int i=0; i<iterations; i++) {
+            long[] result = iteration(benchmark, gridworld, heuristic, nodeComparator);
+            ops += result[0];
+            nanos += result[1];
+            if(result[2] < 0) {
+                measured = false;
+            }
+            bytes += result[2];
+        }
+        double seconds = nanos / 1e9;
+        long expansions = expansions(benchmark, gridworld, heuristic, larger);
+        System.out.printf("%-10s %6d %5.2f %-10s %-7s %12.3f %14s %10s %12s%n", benchmark,
+                size, p, heuristic, larger, ops / seconds,
+                String.format("%.0f", expansions * ops / seconds),
+                measured ? String.format("%.2f", bytes / seconds / (1 << 20)) : "n/a",
+                measured ? Long.toString(bytes / Math.max(ops, 1)) : "n/a");
+    }
+
+    // Runs the benchmark for one iteration. Returns the ops, nanoseconds and bytes allocated.
+    long[] iteration(String benchmark, Grid gridworld, Search.Type heuristic,
+                     NodeComparator nodeComparator) {
+        long ops = 0;
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        long end = start + time * 1000000L;
+        long now;
+        Node sink = null;
+        do {
+            sink = op(benchmark, gridworld, heuristic, nodeComparator);
+            ops++;
+            now = System.nanoTime();
+        } while(now < end);
+        if(sink == null) {
+            throw new IllegalStateException();
+        }
+        long bytes = allocated < 0 ? -1 : allocatedBytes() - allocated;
+        return new long[]{ops, now - start, bytes};
+    }
+
+    Node op(String benchmark, Grid gridworld, Search.Type heuristic,
+            NodeComparator nodeComparator) {
+        if(benchmark.equals("astar")) {
+            int goalX = gridworld.width()-1;
+            int goalY = gridworld.height()-1;
+            return engine.search(gridworld, 0, 0, goalX, goalY, heuristic) ?
+                    engine.path(goalX, goalY) : engine.path(0, 0);
+        } else if(benchmark.equals("forward")) {
+            return Search.repeatedAStarSearch(gridworld, Search.Direction.FORWARD, heuristic,
+                    nodeComparator);
+        } else if(benchmark.equals("backward")) {
+            return Search.repeatedAStarSearch(gridworld, Search.Direction.BACKWARD, heuristic,
+                    nodeComparator);
+        }
+        throw new IllegalArgumentException("Unknown benchmark " + benchmark);
+    }
+
+    // The nodes one op expands, which is the same every time for a given gridworld.
+    static long expansions(String benchmark, Grid gridworld, Search.Type heuristic, boolean larger) {
+        SearchMetrics metrics = new SearchMetrics();
+        int goalX = gridworld.width()-1;
+        int goalY = gridworld.height()-1;
+        NodeComparator nodeComparator = new NodeComparator(larger);
+        if(benchmark.equals("astar")) {
+            Search.aStarSearch(gridworld, 0, 0, goalX, goalY, heuristic, nodeComparator,
+                    Search.Algorithm.ASTAR, metrics);
+        } else {
+            Search.repeatedAStarSearch(gridworld, 0, 0, goalX, goalY,
+                    benchmark.equals("forward") ? Search.Direction.FORWARD :
+                            Search.Direction.BACKWARD, heuristic, nodeComparator, metrics);
+        }
+        return metrics.expanded();
+    }
+
+    /**
+     * Generates the same gridworld for the same size, block probability and seed. The
+     * start and goal corners are always open.
+     */
+    static Grid seededGrid(int size, float p, long seed) {
+        return GridGenerator.generate(size, size, p, seed);
+    }
+
+    // Bytes allocated by this thread so far, or -1 if the JVM can't tell.
+    static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Receives counters from the search algorithms as they run. Every callback takes
+ * primitive values only, so reporting allocates nothing and a listener can be left
+ * attached in production. SearchMetrics is a listener that aggregates them.
+ */
+public interface SearchListener {
+
+    /**
+     * Called at the end of every search, including each replan of a repeated search.
+     *
+     * @param found Whether the search reached its goal.
+     * @param expanded Nodes taken off the open list and expanded.
+     * @param generated Nodes put on the open list.
+     * @param openPeak The largest size the open list reached.
+     * @param decreaseKeys Nodes whose key was lowered while on the open list.
+     * @param nanos The wall time of the search.
+     */
+    void searchFinished(boolean found, int expanded, int generated, int openPeak,
+                        int decreaseKeys, long nanos);
+
+    /**
+     * Called each time the agent of a repeated search travels along its presumed path.
+     *
+     * @param moves The number of spaces the agent moved.
+     * @param discovered The number of blocked spaces the agent discovered (0 or 1).
+     */
+    void agentMoved(int moves, int discovered);
+}
@@ -0,0 +1,149 @@
+/**
+ * A SearchListener that adds up everything reported to it in primitive counters, and
+ * keeps power-of-two histograms of the time and expansions per search. Not thread
+ * safe: use one per thread and combine them with add.
+ */
+public class SearchMetrics implements SearchListener {
+
+    long searches, found;
+    long expanded, generated, decreaseKeys;
+    int openPeak;
+    long nanos, maxNanos;
+    long moves, discovered;
+    // Bucket i counts the searches whose value v satisfies 2^(i-1) <= v < 2^i (bucket 0: v = 0).
+    long[] nanosHistogram = new long[64];
+    long[] expandedHistogram = new long[64];
+
+    public void searchFinished(boolean found, int expanded, int generated, int openPeak,
+                               int decreaseKeys, long nanos) {
+        searches++;
+        if(found) this.found++;
+        this.expanded += expanded;
+        this.generated += generated;
+        this.decreaseKeys += decreaseKeys;
+        this.nanos += nanos;
+        if(openPeak > this.openPeak) this.openPeak = openPeak;
+        if(nanos > maxNanos) maxNanos = nanos;
+        nanosHistogram[bucket(nanos)]++;
+        expandedHistogram[bucket(expanded)]++;
+    }
+
+    public void agentMoved(int moves, int discovered) {
+        this.moves += moves;
+        this.discovered += discovered;
+    }
+
+    /**
+     * Adds another SearchMetrics' counters to this one.
+     */
+    public void add(SearchMetrics other) {
+        searches += other.searches;
+        found += other.found;
+        expanded += other.expanded;
+        generated += other.generated;
+        decreaseKeys += other.decreaseKeys;
+        nanos += other.nanos;
+        openPeak = Math.max(openPeak, other.openPeak);
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+        moves += other.moves;
+        discovered += other.discovered;
+        for(int i=0; i<64; i++) {
+            nanosHistogram[i] += other.nanosHistogram[i];
+            expandedHistogram[i] += other.expandedHistogram[i];
+        }
+    }
+
+    public void reset() {
+        searches = found = expanded = generated = decreaseKeys = nanos = maxNanos = 0;
+        moves = discovered = 0;
+        openPeak = 0;
+        java.util.Arrays.fill(nanosHistogram, 0);
+        java.util.Arrays.fill(expandedHistogram, 0);
+    }
+
+    public long searches() {
+        return searches;
+    }
+
+    public long expanded() {
+        return expanded;
+    }
+
+    public long generated() {
+        return generated;
+    }
+
+    public long decreaseKeys() {
+        return decreaseKeys;
+    }
+
+    public int openPeak() {
+        return openPeak;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    public long moves() {
+        return moves;
+    }
+
+    public long discovered() {
+        return discovered;
+    }
+
+    /**
+     * @return A copy of the histogram of wall time per search, in nanoseconds.
+     */
+    public long[] nanosHistogram() {
+        return nanosHistogram.clone();
+    }
+
+    /**
+     * @return A copy of the histogram of nodes expanded per search.
+     */
+    public long[] expandedHistogram() {
+        return expandedHistogram.clone();
+    }
+
+    /**
+     * @return The totals as one line of text.
+     */
+    public String summary() {
+        return "searches: " + searches + " (found " + found + ")" +
+                ", expanded: " + expanded + ", generated: " + generated +
+                ", decrease-keys: " + decreaseKeys + ", open peak: " + openPeak +
+                ", time: " + nanos / 1000000 + "ms (max " + maxNanos / 1000000 + "ms)" +
+                ", moves: " + moves + ", discovered: " + discovered;
+    }
+
+    /**
+     * @return The non-empty buckets of both histograms, one per line.
+     */
+    public String histogram() {
+        StringBuilder result = new StringBuilder("time per search:\n");
+        appendHistogram(result, nanosHistogram, "ns");
+        result.append("expanded per search:\n");
+        appendHistogram(result, expandedHistogram, "");
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    static void appendHistogram(StringBuilder result, long[] histogram, String unit) {
+        for(int i=0; i<histogram.length; i++) {
+            if(histogram[i] != 0) {
+                result.append("  < ").append(i == 0 ? 1 : 1L << i).append(unit)
+                        .append(": ").append(histogram[i]).append('\n');
+            }
+        }
+    }
+
+    static int bucket(long value) {
+        return value <= 0 ? 0 : Math.min(63, 64 - Long.numberOfLeadingZeros(value));
+    }
+}
@@ -6,13 +6,18 @@ public class SearchTracker {
     int counter;
     boolean finished = false;
     Node path = null;
+    int goalX = -1, goalY = -1;
+    SearchListener listener = null;
+    // The space moveAgent last found blocked, or -1 if it reached the goal.
+    int blockedX = -1, blockedY = -1;
 
     /**
      *
-     * @param direction FORWARD or BACKWARD, denotes the travel direction of
+     * @param direction FORWARD, BACKWARD, ADAPTIVE or INCREMENTAL, denotes the travel direction of
      *                  the repeated A* search agent.
      * @param repeated Whether or not we're performing repeated A* search.
-     * @param agent If repeated, the agent's current position.
+     * @param agent If repeated, the agent's current position. Otherwise the space to
+     *              start from, or null to start from (0, 0).
      * @param counter If repeated, the algorithm's counter.
      */
     public SearchTracker(Search.Direction direction, boolean repeated,
@@ -22,4 +27,16 @@ public class SearchTracker {
         this.agent = agent;
         this.counter = counter;
     }
+
+    /**
+     * @param goalX The x coordinate of the space to search for.
+     * @param goalY The y coordinate of the space to search for.
+     * @see #SearchTracker(Search.Direction, boolean, Node, int)
+     */
+    public SearchTracker(Search.Direction direction, boolean repeated,
+                         Node agent, int counter, int goalX, int goalY) {
+        this(direction, repeated, agent, counter);
+        this.goalX = goalX;
+        this.goalY = goalY;
+    }
 }
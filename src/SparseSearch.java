@@ -0,0 +1,240 @@
+/**
+ * An A* search engine for gridworlds too large for GridSearch's arrays, which hold
+ * a few ints for every cell of the gridworld. Its state is kept in a CellTable
+ * instead, for the cells the search reaches only, and cells are numbered with longs,
+ * so a TiledGrid with billions of spaces can be searched in memory that grows with
+ * the search rather than with the gridworld.
+ *
+ * When searching a TiledGrid, every cell put on the open list asks the gridworld to
+ * read ahead the tiles across the border it is next to, so the tiles the frontier is
+ * about to reach are loaded in the background.
+ *
+ * Ties are broken by g value as in GridSearch. Only formula heuristics can be used,
+ * since the cell numbers do not fit the int cells of table-based ones. A SparseSearch
+ * is not a GridSearch, so it is not one of Search's Algorithms: make one and call
+ * search on it directly, as with a GridSearch from Search.newEngine.
+ */
+public class SparseSearch {
+
+    CellTable table;
+    // The open list: a binary heap of entries, keyed by their f and g values.
+    int[] heap = new int[1 << 10];
+    int size;
+    boolean larger;
+    long width;
+    int goalEntry;
+    Heuristic heuristic;
+    int expanded, generated, decreaseKeys, openPeak;
+    SearchListener listener;
+
+    /**
+     * @param larger if you want to break ties by favoring
+     * larger g values, set this to true.
+     */
+    public SparseSearch(boolean larger) {
+        this.larger = larger;
+        table = new CellTable();
+    }
+
+    /**
+     * Sets the listener told about every search this engine runs, or null for none.
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Runs A* search from the start space to the goal space.
+     *
+     * @param gridworld The gridworld to search.
+     * @param heuristic The heuristic formula to be used when searching.
+     * @return true if the goal was reached, false if it is unreachable.
+     */
+    public boolean search(Grid gridworld, int startX, int startY, int goalX, int goalY,
+                          Search.Type heuristic) {
+        long startNanos = System.nanoTime();
+        this.heuristic = Heuristic.of(heuristic, goalX, goalY);
+        width = gridworld.width();
+        int height = gridworld.height();
+        TiledGrid tiled = gridworld instanceof TiledGrid ? (TiledGrid) gridworld : null;
+        table.clear();
+        size = 0;
+        expanded = generated = decreaseKeys = openPeak = 0;
+        goalEntry = -1;
+
+        long goal = goalY * width + goalX;
+        // As in GridSearch, a blocked start or goal fails at once with nothing reached.
+        if(!gridworld.isBlocked(startX, startY) && !gridworld.isBlocked(goalX, goalY)) {
+            int start = table.add(startY * width + startX);
+            table.g[start] = 0;
+            table.parent[start] = -1;
+            push(start, h(startX, startY));
+        }
+        boolean found = false;
+        while(size > 0) {
+            int curr = pop();
+            table.pos[curr] = CellTable.CLOSED;
+            long cell = table.cell[curr];
+            if(cell == goal) {
+                goalEntry = curr;
+                found = true; // Success.
+                break;
+            }
+            expanded++;
+            int x = (int) (cell % width);
+            int y = (int) (cell / width);
+            int childG = table.g[curr] + 1;
+            if(y-1 >= 0 && !gridworld.isBlocked(x, y-1)) {
+                relax(curr, x, y-1, childG, tiled);
+            }
+            if(x+1 < width && !gridworld.isBlocked(x+1, y)) {
+                relax(curr, x+1, y, childG, tiled);
+            }
+            if(y+1 < height && !gridworld.isBlocked(x, y+1)) {
+                relax(curr, x, y+1, childG, tiled);
+            }
+            if(x-1 >= 0 && !gridworld.isBlocked(x-1, y)) {
+                relax(curr, x-1, y, childG, tiled);
+            }
+        }
+        if(listener != null) {
+            listener.searchFinished(found, expanded, generated, openPeak, decreaseKeys,
+                    System.nanoTime() - startNanos);
+        }
+        return found;
+    }
+
+    /**
+     * Returns the g value the last search found for the given space, or
+     * Integer.MAX_VALUE if the last search never reached it.
+     */
+    public int g(int x, int y) {
+        int entry = table.find(y * width + x);
+        return entry < 0 ? Integer.MAX_VALUE : table.g[entry];
+    }
+
+    /**
+     * Builds the Node chain for the path the last search found to the given space.
+     *
+     * @return The Node at (x, y) with the path tree leading back to the start, in the
+     * same form Search.aStarSearch returns, or null if the space was not reached.
+     */
+    public Node path(int x, int y) {
+        int entry = table.find(y * width + x);
+        if(entry < 0) {
+            return null;
+        }
+        int length = table.g[entry] + 1;
+        int[] entries = new int[length];
+        for(int i=length-1; i>=0; i--) {
+            entries[i] = entry;
+            entry = table.parent[entry];
+        }
+        Node node = null;
+        for(int i=0; i<length; i++) {
+            long cell = table.cell[entries[i]];
+            int cx = (int) (cell % width);
+            int cy = (int) (cell / width);
+            node = new Node(cx, cy, i, h(cx, cy), node);
+        }
+        return node;
+    }
+
+    /**
+     * The number of cells the last search reached, which is what its memory grows with.
+     */
+    public int reached() {
+        return table.size();
+    }
+
+    // Updates a neighbor of the expanded entry if the path through it is cheaper.
+    void relax(int curr, int x, int y, int childG, TiledGrid tiled) {
+        long cell = y * width + x;
+        int child = table.find(cell);
+        if(child < 0) {
+            child = table.add(cell);
+            table.g[child] = childG;
+            table.parent[child] = curr;
+            push(child, childG + h(x, y));
+            generated++;
+            if(size > openPeak) openPeak = size;
+            if(tiled != null) {
+                tiled.readAhead(x, y);
+            }
+        } else if(table.pos[child] >= 0 && childG < table.g[child]) {
+            table.g[child] = childG;
+            table.parent[child] = curr;
+            table.f[child] = childG + h(x, y);
+            siftUp(table.pos[child]);
+            decreaseKeys++;
+        }
+    }
+
+    double h(int x, int y) {
+        return heuristic.h(-1, x, y);
+    }
+
+    void push(int entry, double f) {
+        if(size == heap.length) {
+            heap = java.util.Arrays.copyOf(heap, 2 * size);
+        }
+        table.f[entry] = f;
+        heap[size] = entry;
+        table.pos[entry] = size;
+        siftUp(size++);
+    }
+
+    int pop() {
+        int top = heap[0];
+        size--;
+        if(size > 0) {
+            heap[0] = heap[size];
+            table.pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // Returns true if entry a should be closer to the top of the heap than entry b.
+    boolean less(int a, int b) {
+        double fa = table.f[a], fb = table.f[b];
+        if(fa != fb) {
+            return fa < fb;
+        }
+        return larger ? table.g[a] > table.g[b] : table.g[a] < table.g[b];
+    }
+
+    void siftUp(int i) {
+        int entry = heap[i];
+        while(i > 0) {
+            int parent = (i-1) >> 1;
+            if(!less(entry, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            table.pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = entry;
+        table.pos[entry] = i;
+    }
+
+    void siftDown(int i) {
+        int entry = heap[i];
+        int half = size >> 1;
+        while(i < half) {
+            int child = 2*i + 1;
+            if(child+1 < size && less(heap[child+1], heap[child])) {
+                child++;
+            }
+            if(!less(heap[child], entry)) {
+                break;
+            }
+            heap[i] = heap[child];
+            table.pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = entry;
+        table.pos[entry] = i;
+    }
+}
@@ -0,0 +1,445 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A Grid kept in a file as square tiles, of which only a bounded number are held in
+ * memory at once. Tiles are read in when a space on them is first looked at and the
+ * least recently used tile is dropped once the cache is full, written back first if
+ * it was changed. Gridworlds far larger than the heap, with more spaces than an int
+ * can count, can be searched this way with SparseSearch.
+ *
+ * With read-ahead on, readAhead(x, y) starts loading the tiles across the nearby
+ * borders of a space on a background thread, so a search can ask for them as it
+ * reaches the edge of a tile and find them loaded by the time it crosses. The cache
+ * counts its hits, misses, evictions and read-aheads, to help size it.
+ *
+ * File format: a 16 byte header (the magic number 0x54494C45, the width, the height
+ * and the tile size, all big-endian) followed by the tiles in row-major order. A tile
+ * is tileSize * tileSize bits stored as big-endian longs, row-major within the tile;
+ * bit i is bit (i & 63) of long i >> 6 and is set if the space is blocked. Tiles on
+ * the right and bottom edges are padded to full size. Not thread safe.
+ *
+ * A changed tile that can't be written back when it is due to be dropped stays in the
+ * cache, and a clean tile is dropped in its place, so no change is lost and lookups
+ * don't fail because of it; flush and close try it again and throw if it still fails.
+ * A tile that can't be read makes the lookup throw an UncheckedIOException, as does
+ * interrupting a thread waiting for a tile being read ahead.
+ */
+public class TiledGrid implements Grid, Closeable {
+
+    static final int MAGIC = 0x54494C45; // "TILE"
+    static final int HEADER = 16;
+
+    static class Tile {
+        long[] bits;
+        boolean dirty;
+
+        Tile(long[] bits) {
+            this.bits = bits;
+        }
+    }
+
+    int width, height;
+    int tileSize, shift, mask;
+    long columns, rows;
+    int tileBytes;
+    long version;
+    RandomAccessFile raf;
+    FileChannel channel;
+    boolean writable;
+    int capacity;
+    LinkedHashMap<Long, Tile> tiles;
+    // The tile looked at last, which most lookups hit again.
+    long lastIndex = -1;
+    Tile last;
+    // Tiles being read ahead, at most capacity / 2 of them.
+    ExecutorService reader;
+    Map<Long, Future<long[]>> pending = new HashMap<Long, Future<long[]>>();
+    long hits, misses, evictions, readAheads, readAheadHits;
+
+    TiledGrid(RandomAccessFile raf, boolean writable, int cacheTiles, boolean readAhead)
+            throws IOException {
+        this.raf = raf;
+        this.writable = writable;
+        channel = raf.getChannel();
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        read(header, 0);
+        if(header.getInt(0) != MAGIC) {
+            throw new IOException("Not a tiled gridworld file.");
+        }
+        width = header.getInt(4);
+        height = header.getInt(8);
+        tileSize = header.getInt(12);
+        if(!validTileSize(tileSize) || width <= 0 || height <= 0) {
+            throw new IOException("Bad size " + width + "x" + height + " or tile size " +
+                    tileSize + ".");
+        }
+        shift = Integer.numberOfTrailingZeros(tileSize);
+        mask = tileSize - 1;
+        columns = (width + mask) >>> shift;
+        rows = (height + mask) >>> shift;
+        tileBytes = tileSize * tileSize / 8;
+        capacity = Math.max(cacheTiles, 1);
+        tiles = new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+                if(size() <= capacity) {
+                    return false;
+                }
+                if(eldest.getValue().dirty) {
+                    try {
+                        writeTile(eldest.getKey(), eldest.getValue());
+                    } catch(UncheckedIOException e) {
+                        // Keep the change and drop the least recently used clean tile
+                        // instead, other than the one just added (the last).
+                        Iterator<Map.Entry<Long, Tile>> i = entrySet().iterator();
+                        while(i.hasNext()) {
+                            Map.Entry<Long, Tile> entry = i.next();
+                            if(i.hasNext() && !entry.getValue().dirty) {
+                                evicted(entry.getKey());
+                                i.remove();
+                                break;
+                            }
+                        }
+                        return false;
+                    }
+                }
+                evicted(eldest.getKey());
+                return true;
+            }
+        };
+        if(readAhead) {
+            reader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "TiledGrid read-ahead");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Opens a tiled gridworld file.
+     *
+     * @param cacheTiles The most tiles to hold in memory at once.
+     * @param readAhead Whether readAhead loads tiles in the background.
+     * @param writable Whether setBlocked may change the file. If false, setBlocked
+     *                 throws a ReadOnlyBufferException.
+     */
+    public static TiledGrid open(File file, int cacheTiles, boolean readAhead, boolean writable)
+            throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+        try {
+            return new TiledGrid(raf, writable, cacheTiles, readAhead);
+        } catch(IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a tiled gridworld file with every space open and opens it for writing.
+     * The file is only as large as the tiles written to it on file systems that
+     * support sparse files.
+     *
+     * @param tileSize The width and height of a tile: a power of two from 8 to 32768.
+     *                 Bad sizes throw an IllegalArgumentException before the file is
+     *                 touched.
+     */
+    public static TiledGrid create(File file, int width, int height, int tileSize,
+                                   int cacheTiles) throws IOException {
+        if(!validTileSize(tileSize) || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Bad size " + width + "x" + height +
+                    " or tile size " + tileSize + ".");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(width).putInt(height).putInt(tileSize).flip();
+            while(header.hasRemaining()) {
+                raf.getChannel().write(header);
+            }
+            long count = ((width + tileSize - 1L) / tileSize) * ((height + tileSize - 1L) / tileSize);
+            raf.setLength(HEADER + count * tileSize * tileSize / 8);
+            return new TiledGrid(raf, true, cacheTiles, false);
+        } catch(IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a Grid to a tiled gridworld file that can be opened with open.
+     */
+    public static void write(Grid grid, File file, int tileSize) throws IOException {
+        TiledGrid tiled = create(file, grid.width(), grid.height(), tileSize, 1);
+        try {
+            // Tile by tile, so each tile is written once.
+            for(int top=0; top<grid.height(); top+=tileSize) {
+                for(int left=0; left<grid.width(); left+=tileSize) {
+                    for(int y=top; y<Math.min(top + tileSize, grid.height()); y++) {
+                        for(int x=left; x<Math.min(left + tileSize, grid.width()); x++) {
+                            if(grid.isBlocked(x, y)) {
+                                tiled.setBlocked(x, y, true);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            tiled.close();
+        }
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        int bit = ((y & mask) << shift) | (x & mask);
+        return (tile(x, y).bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public void setBlocked(int x, int y, boolean blocked) {
+        if(!writable) {
+            throw new ReadOnlyBufferException();
+        }
+        Tile tile = tile(x, y);
+        int bit = ((y & mask) << shift) | (x & mask);
+        if(blocked) {
+            tile.bits[bit >>> 6] |= 1L << bit;
+        } else {
+            tile.bits[bit >>> 6] &= ~(1L << bit);
+        }
+        tile.dirty = true;
+        version++;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Starts loading the tiles across the borders of (x, y)'s tile that (x, y) is
+     * next to, unless they are already loaded or read-ahead is off.
+     */
+    public void readAhead(int x, int y) {
+        if(reader == null) {
+            return;
+        }
+        int tx = x >>> shift;
+        int ty = y >>> shift;
+        if((x & mask) == 0 && tx > 0) prefetch(tx-1, ty);
+        if((x & mask) == mask && tx+1 < columns) prefetch(tx+1, ty);
+        if((y & mask) == 0 && ty > 0) prefetch(tx, ty-1);
+        if((y & mask) == mask && ty+1 < rows) prefetch(tx, ty+1);
+    }
+
+    /**
+     * Writes every changed tile in the cache back to the file, including any that
+     * couldn't be written when they were due to be dropped.
+     */
+    public void flush() throws IOException {
+        try {
+            for(Map.Entry<Long, Tile> entry : tiles.entrySet()) {
+                if(entry.getValue().dirty) {
+                    writeTile(entry.getKey(), entry.getValue());
+                }
+            }
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes back the changed tiles and closes the file.
+     */
+    public void close() throws IOException {
+        try {
+            if(writable) {
+                flush();
+            }
+        } finally {
+            if(reader != null) {
+                reader.shutdownNow();
+            }
+            raf.close();
+        }
+    }
+
+    /**
+     * Tile lookups served from the cache, including repeat lookups of the same tile.
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Tile lookups that had to wait for the tile to be read, read ahead or not.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Tiles read ahead, and how many of them were asked for before being discarded.
+     */
+    public long readAheads() {
+        return readAheads;
+    }
+
+    public long readAheadHits() {
+        return readAheadHits;
+    }
+
+    public void resetCounters() {
+        hits = misses = evictions = readAheads = readAheadHits = 0;
+    }
+
+    Tile tile(int x, int y) {
+        long index = (long) (y >>> shift) * columns + (x >>> shift);
+        if(index == lastIndex) {
+            hits++;
+            return last;
+        }
+        Tile tile = tiles.get(index);
+        if(tile != null) {
+            hits++;
+        } else {
+            misses++;
+            if(last != null) {
+                tiles.get(lastIndex); // Lookups of the last tile skip the map; catch up.
+            }
+            tile = new Tile(load(index));
+            tiles.put(index, tile);
+        }
+        lastIndex = index;
+        last = tile;
+        return tile;
+    }
+
+    // Takes the tile from the read-ahead if it was started, or reads it now.
+    long[] load(long index) {
+        Future<long[]> future = pending.remove(index);
+        if(future != null) {
+            try {
+                long[] bits = future.get();
+                readAheadHits++;
+                return bits;
+            } catch(InterruptedException e) {
+                // Reading here instead would close the channel, as FileChannel does to
+                // interrupted readers; leave the tile for the next lookup.
+                Thread.currentThread().interrupt();
+                InterruptedIOException error = new InterruptedIOException(
+                        "Interrupted waiting for a tile.");
+                error.initCause(e);
+                throw new UncheckedIOException(error);
+            } catch(ExecutionException e) {
+                // Fall through and read it here, where the error reaches the caller.
+            }
+        }
+        return readTile(index);
+    }
+
+    // Forgets the last tile looked at if it was dropped from the cache.
+    void evicted(long index) {
+        evictions++;
+        if(index == lastIndex) {
+            lastIndex = -1;
+            last = null;
+        }
+    }
+
+    static boolean validTileSize(int tileSize) {
+        return tileSize >= 8 && Integer.bitCount(tileSize) == 1 && tileSize <= 1 << 15;
+    }
+
+    void prefetch(long tx, long ty) {
+        final long index = ty * columns + tx;
+        if(index == lastIndex || tiles.containsKey(index) || pending.containsKey(index)) {
+            return;
+        }
+        if(pending.size() >= Math.max(capacity / 2, 1)) {
+            // Drop read-aheads that finished without being asked for.
+            for(Iterator<Future<long[]>> i = pending.values().iterator(); i.hasNext(); ) {
+                if(i.next().isDone()) {
+                    i.remove();
+                }
+            }
+            if(pending.size() >= Math.max(capacity / 2, 1)) {
+                return;
+            }
+        }
+        readAheads++;
+        pending.put(index, reader.submit(new Callable<long[]>() {
+            public long[] call() {
+                return readTile(index);
+            }
+        }));
+    }
+
+    long[] readTile(long index) {
+        ByteBuffer buffer = ByteBuffer.allocate(tileBytes);
+        try {
+            read(buffer, HEADER + index * tileBytes);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long[] bits = new long[tileBytes / 8];
+        buffer.clear();
+        buffer.asLongBuffer().get(bits);
+        return bits;
+    }
+
+    void writeTile(long index, Tile tile) {
+        ByteBuffer buffer = ByteBuffer.allocate(tileBytes);
+        buffer.asLongBuffer().put(tile.bits);
+        try {
+            long position = HEADER + index * tileBytes;
+            while(buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        tile.dirty = false;
+    }
+
+    // Fills the buffer from the given position. Past the end of the file is all zeros.
+    void read(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if(read < 0) {
+                break;
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Runs every test class in turn and exits with status 1 if any of them failed.
+ * Each test is a class whose main method returns normally if all its checks pass.
+ *
+ * Usage: javac -d out src/*.java test/*.java && java -cp out AllTests
+ */
+public class AllTests {
+
+    static final String[] TESTS = {
+        "BucketQueueTest",
+        "ComponentIndexTest",
+        "NodeComparatorTest",
+        "PathTest",
+        "TiledGridTest",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int failed = 0;
+        for(String test : TESTS) {
+            long start = System.nanoTime();
+            try {
+                Class.forName(test).getMethod("main", String[].class)
+                        .invoke(null, (Object) new String[0]);
+                System.out.printf("PASS %-24s %8.1f ms%n", test, (System.nanoTime() - start) / 1e6);
+            } catch(InvocationTargetException e) {
+                failed++;
+                System.out.println("FAIL " + test + ": " + e.getCause());
+                e.getCause().printStackTrace(System.out);
+            }
+        }
+        System.out.println((TESTS.length - failed) + " of " + TESTS.length + " tests passed.");
+        if(failed > 0) {
+            System.exit(1);
+        }
+    }
+}
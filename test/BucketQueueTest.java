@@ -0,0 +1,139 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks BucketQueue against a brute-force minimum over random operations, with
+ * NodeComparator as the order cells must come out in, and against IndexedHeap on
+ * random gridworlds.
+ */
+public class BucketQueueTest {
+
+    public static void main(String[] args) {
+        randomOperations();
+        popsInComparatorOrder();
+        samePathsAsHeap();
+        fractionalHeuristics();
+    }
+
+    // Pushes, updates, removes, pops and clears at random, checking every pop against
+    // the smallest of the cells that should be queued.
+    static void randomOperations() {
+        Random random = new Random(5);
+        int cells = 200;
+        for(int trial=0; trial<200; trial++) {
+            boolean larger = random.nextBoolean();
+            NodeComparator comparator = new NodeComparator(larger);
+            BucketQueue queue = new BucketQueue(cells, larger);
+            // The f and g of every cell that should be queued.
+            Map<Integer, int[]> queued = new HashMap<Integer, int[]>();
+            for(int op=0; op<2000; op++) {
+                int kind = random.nextInt(10);
+                int cell = random.nextInt(cells);
+                if(kind < 4) {
+                    int f = random.nextInt(300), g = random.nextInt(cells);
+                    if(queued.containsKey(cell)) {
+                        queue.update(cell, f, g);
+                    } else {
+                        queue.push(cell, f, g);
+                    }
+                    queued.put(cell, new int[]{f, g});
+                } else if(kind < 5) {
+                    queue.remove(cell);
+                    queued.remove(cell);
+                } else if(kind < 9) {
+                    int top = queue.pop();
+                    if(queued.isEmpty()) {
+                        Expect.equal(-1, top, "pop of an empty queue");
+                        continue;
+                    }
+                    int[] popped = queued.remove(top);
+                    Expect.check(popped != null, "popped cell " + top + " was not queued");
+                    for(int[] other : queued.values()) {
+                        Expect.check(comparator.compare(node(popped), node(other)) <= 0,
+                                "popped (f " + popped[0] + ", g " + popped[1] +
+                                ") before (f " + other[0] + ", g " + other[1] + ")");
+                    }
+                } else if(random.nextInt(20) == 0) {
+                    queue.clear();
+                    queued.clear();
+                }
+                Expect.equal(queued.size(), queue.size(), "size");
+                Expect.check(queued.containsKey(cell) == queue.contains(cell), "contains " + cell);
+            }
+            Expect.equal(queued.size(), queue.copyTo(new int[cells]), "cells copied");
+        }
+    }
+
+    // With nothing pushed in between, pops come out sorted by NodeComparator.
+    static void popsInComparatorOrder() {
+        Random random = new Random(7);
+        int cells = 500;
+        for(boolean larger : new boolean[]{true, false}) {
+            NodeComparator comparator = new NodeComparator(larger);
+            BucketQueue queue = new BucketQueue(cells, larger);
+            for(int cell=0; cell<cells; cell++) {
+                queue.push(cell, random.nextInt(20), random.nextInt(cells));
+            }
+            int[] last = null;
+            while(!queue.isEmpty()) {
+                int cell = queue.pop();
+                int[] popped = {(int) queue.f[cell], queue.g[cell]};
+                if(last != null) {
+                    Expect.check(comparator.compare(node(last), node(popped)) <= 0,
+                            "pops out of order, larger " + larger);
+                }
+                last = popped;
+            }
+        }
+    }
+
+    static void samePathsAsHeap() {
+        for(int seed=0; seed<20; seed++) {
+            Grid grid = GridGenerator.generate(101, 101, 0.25f, seed, true);
+            for(boolean larger : new boolean[]{true, false}) {
+                for(Search.Type type : new Search.Type[]{Search.Type.MANHATTAN, Search.Type.CHEBYSHEV}) {
+                    Node heap = Search.aStarSearch(grid, 0, 0, 100, 100, type,
+                            new NodeComparator(larger), Search.Algorithm.ASTAR, null);
+                    Node buckets = Search.aStarSearch(grid, 0, 0, 100, 100, type,
+                            new NodeComparator(larger), Search.Algorithm.ASTAR_BUCKETS, null);
+                    Expect.equal(heap.g, buckets.g, "path length, seed " + seed);
+                }
+            }
+        }
+    }
+
+    // Heuristics that aren't whole numbers are refused before anything is searched.
+    static void fractionalHeuristics() {
+        final BitGrid grid = GridGenerator.generate(50, 50, 0.2f, 3, true);
+        final SearchMetrics metrics = new SearchMetrics();
+        Expect.thrown(IllegalArgumentException.class, new Runnable() {
+            public void run() {
+                Search.aStarSearch(grid, 0, 0, 49, 49, Search.Type.EUCLIDIAN,
+                        new NodeComparator(true), Search.Algorithm.ASTAR_BUCKETS, metrics);
+            }
+        }, "Euclidean heuristic");
+        Expect.equal(0, metrics.searches(), "searches reported");
+        // True distances with an open space the goal can't be reached from.
+        grid.setBlocked(20, 20, false);
+        grid.setBlocked(19, 20, true);
+        grid.setBlocked(21, 20, true);
+        grid.setBlocked(20, 19, true);
+        grid.setBlocked(20, 21, true);
+        final HeuristicField exact = HeuristicField.exact(grid, 0, 0);
+        Expect.check(!exact.integral(), "field with an unreachable space");
+        Expect.thrown(IllegalArgumentException.class, new Runnable() {
+            public void run() {
+                Search.newEngine(50, 50, true, Search.Algorithm.ASTAR_BUCKETS)
+                        .search(grid, 49, 49, 0, 0, exact);
+            }
+        }, "field with an unreachable space");
+        Expect.check(HeuristicField.of(Search.Type.MANHATTAN, 50, 50, 0, 0).integral(),
+                "Manhattan field");
+    }
+
+    // A Node with the given f and g values.
+    static Node node(int[] fg) {
+        return new Node(0, 0, fg[1], fg[0] - fg[1], null);
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks ComponentIndex against breadth-first search: built from scratch, after each
+ * of a run of blocked calls, and as the fast fail of aStarSearch.
+ */
+public class ComponentIndexTest {
+
+    public static void main(String[] args) {
+        Random random = new Random(22);
+        int[][] sizes = {{1, 1}, {1, 40}, {40, 1}, {2, 2}, {17, 9}, {64, 64}};
+        for(int[] size : sizes) {
+            for(float p : new float[]{0, 0.2f, 0.4f, 0.6f}) {
+                BitGrid grid = GridGenerator.generate(size[0], size[1], p, random.nextLong(), false);
+                expectSame(ComponentIndex.of(grid), grid, "built " + size[0] + "x" + size[1]);
+                blockedSplits(grid, random);
+            }
+        }
+        sharedIndexes();
+        fastFail();
+    }
+
+    // Blocks open spaces one at a time, updating an index of its own after each.
+    static void blockedSplits(BitGrid grid, Random random) {
+        ComponentIndex index = new ComponentIndex(grid);
+        int cells = grid.width() * grid.height();
+        for(int i=0; i<cells / 2; i++) {
+            int cell = random.nextInt(cells);
+            int x = cell % grid.width(), y = cell / grid.width();
+            grid.setBlocked(x, y, true);
+            index.blocked(grid, x, y);
+            expectSame(index, grid, "after blocking (" + x + ", " + y + ")");
+        }
+        // Anything other than one more blocked space rebuilds it.
+        grid.setBlocked(0, 0, false);
+        grid.setBlocked(grid.width()-1, grid.height()-1, false);
+        index.blocked(grid, 0, 0);
+        expectSame(index, grid, "after opening spaces");
+    }
+
+    static void sharedIndexes() {
+        BitGrid grid = GridGenerator.generate(30, 30, 0.3f, 5, true);
+        ComponentIndex first = ComponentIndex.of(grid);
+        Expect.check(ComponentIndex.of(grid) == first, "cached index reused");
+        int[] before = labels(first, grid);
+        grid.setBlocked(15, 15, !grid.isBlocked(15, 15));
+        ComponentIndex second = ComponentIndex.of(grid);
+        Expect.check(second != first, "new index once the grid changed");
+        Expect.check(Arrays.equals(before, labels(first, grid)), "handed-out index left alone");
+        expectSame(second, grid, "rebuilt");
+        final BitGrid blockedGrid = grid;
+        final ComponentIndex shared = second;
+        Expect.thrown(IllegalStateException.class, new Runnable() {
+            public void run() {
+                shared.blocked(blockedGrid, 15, 15);
+            }
+        }, "blocked on a shared index");
+    }
+
+    // A goal walled off from the start fails without a search, and the listener hears of it.
+    static void fastFail() {
+        BitGrid grid = new BitGrid(10, 10);
+        for(int y=0; y<10; y++) {
+            grid.setBlocked(5, y, true);
+        }
+        SearchMetrics metrics = new SearchMetrics();
+        Node node = Search.aStarSearch(grid, 0, 0, 9, 9, Heuristic.of(Search.Type.MANHATTAN, 9, 9),
+                new NodeComparator(true), Search.Algorithm.ASTAR, metrics, ComponentIndex.of(grid));
+        Expect.check(node.tree == null && node.x == 0 && node.y == 0, "no path");
+        Expect.equal(1, metrics.searches(), "searches reported");
+        Expect.equal(0, metrics.expanded(), "expanded");
+        grid.setBlocked(5, 3, false);
+        metrics.reset();
+        node = Search.aStarSearch(grid, 0, 0, 9, 9, Heuristic.of(Search.Type.MANHATTAN, 9, 9),
+                new NodeComparator(true), Search.Algorithm.ASTAR, metrics, ComponentIndex.of(grid));
+        Expect.equal(18, node.g, "path through the gap");
+        Expect.equal(1, metrics.searches(), "searches reported");
+    }
+
+    // Checks that two spaces share a component exactly when BFS gets from one to the other.
+    static void expectSame(ComponentIndex index, Grid grid, String message) {
+        int[] expected = bfsLabels(grid);
+        int[] actual = labels(index, grid);
+        // The labels of each kind mapped to the other, both ways.
+        Map<Integer, Integer> toActual = new HashMap<Integer, Integer>();
+        Map<Integer, Integer> toExpected = new HashMap<Integer, Integer>();
+        for(int cell=0; cell<expected.length; cell++) {
+            String problem = null;
+            if(expected[cell] < 0) {
+                if(actual[cell] != -1) problem = "is blocked but labeled " + actual[cell];
+            } else if(actual[cell] < 0) {
+                problem = "is open but unlabeled";
+            } else if(!toActual.containsKey(expected[cell])) {
+                if(toExpected.containsKey(actual[cell])) problem = "joins two components";
+                toActual.put(expected[cell], actual[cell]);
+                toExpected.put(actual[cell], expected[cell]);
+            } else if(toActual.get(expected[cell]) != actual[cell]) {
+                problem = "splits a component";
+            }
+            if(problem != null) {
+                Expect.fail(message + ": cell " + cell + " " + problem);
+            }
+        }
+    }
+
+    static int[] labels(ComponentIndex index, Grid grid) {
+        int[] labels = new int[grid.width() * grid.height()];
+        for(int cell=0; cell<labels.length; cell++) {
+            labels[cell] = index.component(cell % grid.width(), cell / grid.width());
+        }
+        return labels;
+    }
+
+    static int[] bfsLabels(Grid grid) {
+        int width = grid.width(), height = grid.height();
+        int[] labels = new int[width * height];
+        Arrays.fill(labels, -2);
+        int[] queue = new int[labels.length];
+        int next = 0;
+        for(int cell=0; cell<labels.length; cell++) {
+            if(labels[cell] != -2) {
+                continue;
+            }
+            if(grid.isBlocked(cell % width, cell / width)) {
+                labels[cell] = -1;
+                continue;
+            }
+            labels[cell] = next;
+            int head = 0, tail = 0;
+            queue[tail++] = cell;
+            while(head < tail) {
+                int curr = queue[head++];
+                int x = curr % width, y = curr / width;
+                int[][] around = {{x, y-1}, {x+1, y}, {x, y+1}, {x-1, y}};
+                for(int[] n : around) {
+                    if(n[0] < 0 || n[0] >= width || n[1] < 0 || n[1] >= height) {
+                        continue;
+                    }
+                    int c = n[1] * width + n[0];
+                    if(labels[c] == -2 && !grid.isBlocked(n[0], n[1])) {
+                        labels[c] = next;
+                        queue[tail++] = c;
+                    }
+                }
+            }
+            next++;
+        }
+        return labels;
+    }
+}
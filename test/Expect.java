@@ -0,0 +1,37 @@
+/**
+ * The checks the tests make. A failed check throws an AssertionError with its
+ * message, so a test stops at its first failure whether or not assertions are on.
+ */
+public class Expect {
+
+    public static void check(boolean condition, String message) {
+        if(!condition) {
+            fail(message);
+        }
+    }
+
+    public static void fail(String message) {
+        throw new AssertionError(message);
+    }
+
+    public static void equal(long expected, long actual, String message) {
+        if(expected != actual) {
+            throw new AssertionError(message + ": expected " + expected + ", got " + actual);
+        }
+    }
+
+    /**
+     * Checks that the code throws an exception of the given type.
+     */
+    public static void thrown(Class<? extends Throwable> type, Runnable code, String message) {
+        try {
+            code.run();
+        } catch(Throwable e) {
+            if(type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": threw " + e, e);
+        }
+        throw new AssertionError(message + ": nothing thrown");
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Checks that NodeComparator orders Nodes as it did before it returned 0 for ties:
+ * by f, then by g in the direction larger picks. Only Nodes with equal f and g
+ * values, which the old version ordered inconsistently, now compare as equal.
+ */
+public class NodeComparatorTest {
+
+    public static void main(String[] args) {
+        for(boolean larger : new boolean[]{true, false}) {
+            NodeComparator comparator = new NodeComparator(larger);
+            for(int fa=0; fa<6; fa++) {
+                for(int ga=0; ga<6; ga++) {
+                    for(int fb=0; fb<6; fb++) {
+                        for(int gb=0; gb<6; gb++) {
+                            Node a = new Node(0, 0, ga, fa - ga, null);
+                            Node b = new Node(0, 0, gb, fb - gb, null);
+                            int sign = Integer.signum(comparator.compare(a, b));
+                            String pair = "(f " + fa + ", g " + ga + ") vs (f " + fb + ", g " +
+                                    gb + "), larger " + larger;
+                            if(fa == fb && ga == gb) {
+                                Expect.equal(0, sign, pair);
+                            } else {
+                                Expect.equal(oldCompare(a, b, larger), sign, pair);
+                            }
+                            Expect.equal(-sign, Integer.signum(comparator.compare(b, a)),
+                                    "antisymmetry, " + pair);
+                        }
+                    }
+                }
+            }
+        }
+        // Fractional f values still compare by f first.
+        NodeComparator comparator = new NodeComparator(true);
+        Expect.check(comparator.compare(new Node(0, 0, 5, 0.5, null),
+                new Node(0, 0, 1, 4.6, null)) < 0, "fractional f");
+    }
+
+    // NodeComparator.compare as it was before ties returned 0.
+    static int oldCompare(Node a, Node b, boolean larger) {
+        if(a.f < b.f) {
+            return -1;
+        } else if(a.f == b.f) {
+            if(larger) {
+                return a.g > b.g ? -1 : 1;
+            } else {
+                return a.g > b.g ? 1 : -1;
+            }
+        } else return 1;
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Checks Path's text and binary forms, its reverse and subPath views and its
+ * conversion to and from Node chains, on paths found by searching, and PathCache,
+ * which keeps its paths as Paths.
+ */
+public class PathTest {
+
+    public static void main(String[] args) throws IOException {
+        BitGrid grid = GridGenerator.generate(41, 29, 0.25f, 17, true);
+        Node found = Search.aStarSearch(grid, Search.Type.MANHATTAN, new NodeComparator(true));
+        Expect.check(found.tree != null, "path found");
+        Path path = Path.of(found, grid.width()).reverse();
+        Expect.equal(found.g + 1, path.length(), "length");
+        Expect.equal(0, path.cell(0), "starts at the start");
+        Expect.equal(grid.width() * grid.height() - 1, path.cell(path.length()-1),
+                "ends at the goal");
+        views(path);
+        nodes(path, found);
+        // Every length up to a few bytes of moves, forward and reversed.
+        for(int to=0; to<=10; to++) {
+            roundTrip(path.subPath(0, to), "first " + to);
+            roundTrip(path.reverse().subPath(3, 3 + to), "reversed from 3, " + to);
+        }
+        roundTrip(path, "whole path");
+        badText();
+        cache(grid, path);
+    }
+
+    static void views(final Path path) {
+        int length = path.length();
+        int[] cells = path.toArray();
+        Path reversed = path.reverse();
+        for(int i=0; i<length; i++) {
+            Expect.equal(cells[length-1 - i], reversed.cell(i), "reversed cell " + i);
+        }
+        Expect.check(Arrays.equals(cells, reversed.reverse().toArray()), "reversed twice");
+        Path middle = path.subPath(5, length - 4);
+        Expect.equal(length - 9, middle.length(), "subPath length");
+        for(int i=0; i<middle.length(); i++) {
+            Expect.equal(cells[5 + i], middle.cell(i), "subPath cell " + i);
+        }
+        Expect.check(Arrays.equals(middle.reverse().toArray(),
+                reversed.subPath(4, length - 5).toArray()), "subPath of the reverse");
+        Expect.check(Arrays.equals(middle.subPath(2, 6).toArray(),
+                path.subPath(7, 11).toArray()), "subPath of a subPath");
+        Expect.equal(0, path.subPath(3, 3).length(), "empty subPath");
+        Expect.thrown(IndexOutOfBoundsException.class, new Runnable() {
+            public void run() {
+                path.subPath(2, path.length() + 1);
+            }
+        }, "subPath past the end");
+        Expect.thrown(IndexOutOfBoundsException.class, new Runnable() {
+            public void run() {
+                path.reverse().cell(path.length());
+            }
+        }, "cell past the end");
+    }
+
+    // of and toNode give back the chain the search returned, and each other's paths.
+    static void nodes(Path path, Node found) {
+        Node chain = path.toNode(Search.Type.MANHATTAN);
+        Node expected = found;
+        for(Node n=chain; n!=null || expected!=null; n=n.tree, expected=expected.tree) {
+            Expect.check(n != null && expected != null, "chain lengths");
+            Expect.check(n.x == expected.x && n.y == expected.y, "chain space at g " + n.g);
+            Expect.equal(expected.g, n.g, "chain g");
+        }
+        Expect.check(Arrays.equals(path.reverse().toArray(),
+                Path.of(chain, path.width).toArray()), "of(toNode())");
+        Expect.check(new Path(path.width, new int[0]).toNode(Search.Type.MANHATTAN) == null,
+                "empty path has no chain");
+    }
+
+    static void roundTrip(Path path, String message) throws IOException {
+        int[] cells = path.toArray();
+        StringBuilder text = new StringBuilder();
+        path.write(text);
+        Expect.check(text.toString().equals(path.toString()), message + ": write and toString");
+        Expect.check(Arrays.equals(cells, Path.parse(text, path.width).toArray()),
+                message + ": text");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        path.writeBinary(new DataOutputStream(bytes));
+        // The width, the length, the start cell and 2 bits a move.
+        int moves = Math.max(cells.length - 1, 0);
+        Expect.equal(8 + (cells.length > 0 ? 4 : 0) + (moves + 3) / 4, bytes.size(),
+                message + ": binary size");
+        Path read = Path.readBinary(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Expect.equal(path.width, read.width, message + ": binary width");
+        Expect.check(Arrays.equals(cells, read.toArray()), message + ": binary");
+    }
+
+    static void badText() {
+        for(final String text : new String[]{"(1,2), 3", "(1;2)", "(a,2)", "1,2"}) {
+            Expect.thrown(IllegalArgumentException.class, new Runnable() {
+                public void run() {
+                    Path.parse(text, 10);
+                }
+            }, "parse " + text);
+        }
+        Expect.equal(0, Path.parse("", 10).length(), "parse of nothing");
+    }
+
+    // Paths come back from the cache whole, and as views for starts along them.
+    static void cache(BitGrid grid, Path path) {
+        PathCache cache = new PathCache(8);
+        GridSearch engine = new GridSearch(grid.width(), grid.height(), true);
+        int goalX = grid.width()-1, goalY = grid.height()-1;
+        Node first = cache.search(engine, grid, 0, 0, goalX, goalY, Search.Type.MANHATTAN);
+        Expect.equal(path.length() - 1, first.g, "searched");
+        Expect.equal(1, cache.misses(), "misses");
+        Node again = cache.search(engine, grid, 0, 0, goalX, goalY, Search.Type.MANHATTAN);
+        Expect.equal(first.g, again.g, "cached");
+        Expect.equal(1, cache.hits(), "hits");
+        int middle = path.cell(path.length() / 2);
+        Path rest = cache.get(grid, middle % grid.width(), middle / grid.width(), goalX, goalY);
+        Expect.equal(1, cache.subpathHits(), "subpath hits");
+        Expect.check(rest != null && Arrays.equals(rest.toArray(),
+                path.subPath(path.length() / 2, path.length()).toArray()), "subpath");
+    }
+}
@@ -0,0 +1,266 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Checks TiledGrid against the BitGrid it was written from, its handling of write
+ * failures and interrupts, and that every engine answers the same on either kind of
+ * Grid, SparseSearch included, blocked start and goal spaces included.
+ */
+public class TiledGridTest {
+
+    public static void main(String[] args) throws Exception {
+        File file = File.createTempFile("tiled", ".grid");
+        try {
+            BitGrid grid = GridGenerator.generate(301, 177, 0.3f, 23, true);
+            TiledGrid.write(grid, file, 32);
+            roundTrip(grid, file);
+            randomWrites(grid, file);
+            badArguments(file);
+            failedWrites(grid, file);
+            interrupted(file);
+            sameAnswers(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    static void roundTrip(BitGrid grid, File file) throws IOException {
+        final TiledGrid tiled = TiledGrid.open(file, 3, true, false);
+        try {
+            expectSame(grid, tiled, "written");
+            Expect.thrown(ReadOnlyBufferException.class, new Runnable() {
+                public void run() {
+                    tiled.setBlocked(0, 0, true);
+                }
+            }, "setBlocked when read-only");
+        } finally {
+            tiled.close();
+        }
+    }
+
+    // Random writes through a cache of two tiles, so nearly every one evicts a changed tile.
+    static void randomWrites(BitGrid grid, File file) throws IOException {
+        Random random = new Random(1);
+        TiledGrid tiled = TiledGrid.open(file, 2, false, true);
+        try {
+            for(int i=0; i<20000; i++) {
+                int x = random.nextInt(grid.width()), y = random.nextInt(grid.height());
+                boolean blocked = random.nextInt(10) < 3;
+                grid.setBlocked(x, y, blocked);
+                tiled.setBlocked(x, y, blocked);
+            }
+            Expect.check(tiled.evictions() > 0, "tiles evicted");
+            expectSame(grid, tiled, "after random writes");
+        } finally {
+            tiled.close();
+        }
+        TiledGrid reopened = TiledGrid.open(file, 2, false, false);
+        try {
+            expectSame(grid, reopened, "reopened");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // Bad sizes are refused before the file is touched.
+    static void badArguments(final File file) throws IOException {
+        long length = file.length();
+        for(final int tileSize : new int[]{0, 4, 24, 1 << 16}) {
+            Expect.thrown(IllegalArgumentException.class, new Runnable() {
+                public void run() {
+                    try {
+                        TiledGrid.create(file, 100, 100, tileSize, 4).close();
+                    } catch(IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }, "tile size " + tileSize);
+        }
+        Expect.thrown(IllegalArgumentException.class, new Runnable() {
+            public void run() {
+                try {
+                    TiledGrid.create(file, 0, 100, 16, 4).close();
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }, "width 0");
+        Expect.equal(length, file.length(), "file left alone");
+    }
+
+    // Tiles that can't be written when evicted stay cached until a flush can write them.
+    static void failedWrites(BitGrid grid, File file) throws IOException {
+        final boolean[] failing = {true};
+        TiledGrid tiled = new TiledGrid(new RandomAccessFile(file, "rw"), true, 2, false) {
+            @Override
+            void writeTile(long index, Tile tile) {
+                if(failing[0]) {
+                    throw new UncheckedIOException(new IOException("Disk full."));
+                }
+                super.writeTile(index, tile);
+            }
+        };
+        try {
+            for(int x=0; x<grid.width(); x+=7) {
+                for(int y=0; y<grid.height(); y+=5) {
+                    boolean blocked = !grid.isBlocked(x, y);
+                    grid.setBlocked(x, y, blocked);
+                    tiled.setBlocked(x, y, blocked);
+                }
+            }
+            expectSame(grid, tiled, "while writes fail");
+            boolean thrown = false;
+            try {
+                tiled.flush();
+            } catch(IOException e) {
+                thrown = true;
+            }
+            Expect.check(thrown, "flush reports the failure");
+            failing[0] = false;
+        } finally {
+            tiled.close();
+        }
+        TiledGrid reopened = TiledGrid.open(file, 2, false, false);
+        try {
+            expectSame(grid, reopened, "once writes succeed");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // Interrupting a wait for a tile read ahead throws, keeps the flag set and leaves
+    // the file readable once the interrupt is cleared.
+    static void interrupted(File file) throws Exception {
+        TiledGrid tiled = TiledGrid.open(file, 4, true, false);
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            // Hold up the reader so the read-ahead below is still waiting when looked up.
+            tiled.reader.submit(new Runnable() {
+                public void run() {
+                    try {
+                        release.await();
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            tiled.prefetch(1, 0);
+            Thread.currentThread().interrupt();
+            try {
+                tiled.isBlocked(32, 0);
+                Expect.fail("lookup while interrupted returned");
+            } catch(UncheckedIOException e) {
+                Expect.check(e.getCause() instanceof InterruptedIOException, "cause " + e.getCause());
+            }
+            Expect.check(Thread.interrupted(), "interrupt flag kept");
+            release.countDown();
+            TiledGrid copy = TiledGrid.open(file, 4, false, false);
+            try {
+                expectSame(copy, tiled, "after the interrupt");
+            } finally {
+                copy.close();
+            }
+        } finally {
+            tiled.close();
+        }
+    }
+
+    // Every engine, and SparseSearch, finds paths of the same length on a BitGrid and
+    // on a TiledGrid of it, and none finds a path out of or into a blocked space.
+    static void sameAnswers(File file) throws IOException {
+        BitGrid grid = GridGenerator.generate(64, 48, 0.3f, 7, true);
+        Random random = new Random(3);
+        int[][] queries = new int[60][];
+        for(int i=0; i<queries.length; i++) {
+            do {
+                queries[i] = new int[]{random.nextInt(64), random.nextInt(48),
+                        random.nextInt(64), random.nextInt(48)};
+            } while(queries[i][0] == queries[i][2] && queries[i][1] == queries[i][3]);
+        }
+        // Blocked start and blocked goal.
+        queries[0] = new int[]{blocked(grid, 0), 0, 63, 47};
+        queries[1] = new int[]{0, 0, blocked(grid, 47), 47};
+        TiledGrid.write(grid, file, 16);
+        TiledGrid tiled = TiledGrid.open(file, 4, true, false);
+        try {
+            GridSearch reference = new GridSearch(64, 48, true);
+            SparseSearch sparse = new SparseSearch(true);
+            NodeComparator comparator = new NodeComparator(true);
+            for(int[] q : queries) {
+                String query = "(" + q[0] + ", " + q[1] + ") to (" + q[2] + ", " + q[3] + ")";
+                boolean open = !grid.isBlocked(q[0], q[1]) && !grid.isBlocked(q[2], q[3]);
+                boolean found = reference.search(grid, q[0], q[1], q[2], q[3], Search.Type.MANHATTAN);
+                Expect.check(open || !found, "path with a blocked end, " + query);
+                int length = found ? reference.g(q[2], q[3]) : -1;
+                Expect.check(found == sparse.search(tiled, q[0], q[1], q[2], q[3],
+                        Search.Type.MANHATTAN), "SparseSearch, " + query);
+                Expect.equal(length, found ? sparse.g(q[2], q[3]) : -1, "SparseSearch, " + query);
+                for(Search.Algorithm algorithm : Search.Algorithm.values()) {
+                    for(Grid world : new Grid[]{grid, tiled}) {
+                        SearchMetrics metrics = new SearchMetrics();
+                        Node path = Search.aStarSearch(world, q[0], q[1], q[2], q[3],
+                                Search.Type.MANHATTAN, comparator, algorithm, metrics);
+                        String where = algorithm + " on " + world.getClass().getName() + ", " + query;
+                        Expect.check(found == (path.tree != null), where);
+                        if(found && searchesShortest(algorithm)) {
+                            Expect.equal(length, path.g, where);
+                        }
+                        Expect.equal(1, metrics.searches(), "searches reported, " + where);
+                    }
+                }
+            }
+            // A TiledGrid batch runs on this thread alone; the answers must still match.
+            List<BatchSearch.Query> batch = new ArrayList<BatchSearch.Query>();
+            for(int[] q : queries) {
+                batch.add(new BatchSearch.Query(q[0], q[1], q[2], q[3]));
+            }
+            Node[] fromGrid = BatchSearch.search(grid, batch, Search.Type.MANHATTAN, comparator,
+                    Search.Algorithm.ASTAR);
+            Node[] fromTiles = BatchSearch.search(tiled, batch, Search.Type.MANHATTAN, comparator,
+                    Search.Algorithm.ASTAR);
+            for(int i=0; i<queries.length; i++) {
+                Expect.equal(fromGrid[i] == null ? -1 : fromGrid[i].g,
+                        fromTiles[i] == null ? -1 : fromTiles[i].g, "BatchSearch query " + i);
+            }
+        } finally {
+            tiled.close();
+        }
+    }
+
+    static boolean searchesShortest(Search.Algorithm algorithm) {
+        return algorithm != Search.Algorithm.HIERARCHICAL &&
+                algorithm != Search.Algorithm.WEIGHTED_ASTAR &&
+                algorithm != Search.Algorithm.ANYTIME;
+    }
+
+    // The x of a space on row y to block, making it blocked if none is.
+    static int blocked(BitGrid grid, int y) {
+        for(int x=1; x<grid.width(); x++) {
+            if(grid.isBlocked(x, y)) {
+                return x;
+            }
+        }
+        grid.setBlocked(1, y, true);
+        return 1;
+    }
+
+    static void expectSame(Grid expected, Grid actual, String message) {
+        Expect.equal(expected.width(), actual.width(), message + ": width");
+        Expect.equal(expected.height(), actual.height(), message + ": height");
+        for(int y=0; y<expected.height(); y++) {
+            for(int x=0; x<expected.width(); x++) {
+                if(expected.isBlocked(x, y) != actual.isBlocked(x, y)) {
+                    Expect.fail(message + ": space (" + x + ", " + y + ")");
+                }
+            }
+        }
+    }
+}